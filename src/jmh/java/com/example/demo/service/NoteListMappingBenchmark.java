@@ -0,0 +1,71 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.NoteListItemDto;
+import com.example.demo.repository.projection.NoteListItemView;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * NoteService.formatDate and the NoteListItemDto mapping used by the note
+ * list, page and recent endpoints, for one page of notes whose last activity
+ * is spread over minutes, hours, days and weeks.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NoteListMappingBenchmark {
+
+    @Param({"20", "100"})
+    private int pageSize;
+
+    private NoteService noteService;
+    private List<NoteListItemView> views;
+
+    @Setup
+    public void setUp() {
+        // Only the pure mapping methods are called, the injected collaborators stay unset
+        noteService = new NoteService();
+        LocalDateTime now = LocalDateTime.now();
+        long[] agesInMinutes = {0, 5, 90, 600, 60 * 24 * 2, 60 * 24 * 30};
+        views = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            views.add(new View((long) i, "Note " + i, now.minusMinutes(agesInMinutes[i % agesInMinutes.length])));
+        }
+    }
+
+    @Benchmark
+    public void formatDate(Blackhole blackhole) {
+        for (NoteListItemView view : views) {
+            blackhole.consume(noteService.formatDate(view.getLastActivity()));
+        }
+    }
+
+    @Benchmark
+    public List<NoteListItemDto> mapListItems() {
+        return views.stream()
+                .map(noteService::mapToNoteListItemDto)
+                .collect(Collectors.toList());
+    }
+
+    private record View(Long getId, String getTitle, LocalDateTime getLastActivity) implements NoteListItemView {
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.TrashDto;
+import com.example.demo.model.Trash;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TrashService.mapToTrashDto, including the participant count taken from the
+ * stored collaborator count.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TrashDtoBenchmark {
+
+    @Param({"0", "5", "50"})
+    private int collaborators;
+
+    private TrashService trashService;
+    private Trash trash;
+
+    @Setup
+    public void setUp() {
+        trashService = new TrashService(null, null, null, null, null, null, null, "copy", 200);
+
+        trash = new Trash();
+        trash.setId(1L);
+        trash.setTitle("Trashed note");
+        trash.setContent("x".repeat(2_000));
+        trash.setCreatedAt(LocalDateTime.now().minusDays(3));
+        trash.setDeletedAt(LocalDateTime.now());
+        trash.setOriginalNoteId(7L);
+        StringJoiner ids = new StringJoiner(",");
+        for (int i = 0; i < collaborators; i++) {
+            ids.add(Long.toString(1_000L + i));
+        }
+        trash.setCollaboratorsInfo(ids.toString());
+        trash.setCollaboratorCount(collaborators);
+    }
+
+    @Benchmark
+    public TrashDto mapToTrashDto() {
+        return trashService.mapToTrashDto(trash);
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.demo.service.ai;
+
+import com.example.demo.model.AiChatMessage;
+import com.example.demo.model.AiMessageRole;
+import com.example.demo.model.Note;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PromptContextBuilder.build for a 4 KB note and history windows of growing length.
+ * With the default budget the cost is bounded regardless of the window size.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PromptBuilderBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int historySize;
+
+    private final PromptContextBuilder promptContextBuilder = new PromptContextBuilder(8000, 50, 20, 4000);
+
+    private Note note;
+    private List<AiChatMessage> history;
+
+    @Setup
+    public void setUp() {
+        note = new Note();
+        note.setId(1L);
+        note.setTitle("Benchmark note");
+        note.setContent("Lorem ipsum dolor sit amet, consectetur adipiscing elit. ".repeat(72));
+
+        history = new ArrayList<>(historySize);
+        for (int i = 0; i < historySize; i++) {
+            AiChatMessage message = new AiChatMessage();
+            message.setId((long) i);
+            message.setNote(note);
+            message.setRole(i % 2 == 0 ? AiMessageRole.USER : AiMessageRole.MODEL);
+            message.setContent("Message " + i + ": " + "some chat text about the note ".repeat(10));
+            history.add(message);
+        }
+    }
+
+    @Benchmark
+    public String buildPrompt() {
+        return promptContextBuilder.build(note, null, history);
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.demo.service.auth;
+
+import com.example.demo.model.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.io.Encoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parse throughput of a single token. rebuildPerCall is the former JwtService:
+ * Base64 decode, key derivation and a new parser for every parse.
+ * cachedParser uses the parser and key ring JwtService now builds once.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtParserBenchmark {
+
+    private String secret;
+    private JwtService jwtService;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        secret = Encoders.BASE64.encode(Jwts.SIG.HS256.key().build().getEncoded());
+        jwtService = new JwtService(secret, TimeUnit.HOURS.toMillis(1));
+
+        User user = new User("benchmark", "benchmark@example.com", "unused");
+        user.setId(42L);
+        user.setEnabled(true);
+        token = jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public Claims rebuildPerCall() {
+        return Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret)))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+
+    @Benchmark
+    public Claims cachedParser() {
+        return jwtService.parseClaims(token);
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.demo.loadtest;
+
+import com.example.demo.loadtest.LoadTestDataSeeder.SeededUser;
+import com.example.demo.service.auth.AuthenticatedUser;
+import com.example.demo.service.auth.JwtService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * End-to-end latency of the main read endpoints and the chat endpoint under
+ * concurrency, against a seeded Postgres in a container. Reports p50/p95/p99
+ * latency, throughput and JPA statements per request for each endpoint, on
+ * stdout and in target/loadtest-report.txt.
+ * Only runs with the loadtest profile: ./mvnw -P loadtest test
+ */
+@Testcontainers
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.jpa.hibernate.ddl-auto=update",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.mail.username=loadtest@example.com",
+        "spring.mail.password=unused",
+        "app.ai.client=stub",
+        "app.ai.stub.latency-distribution=UNIFORM",
+        "app.ai.stub.latency-spread=0.25",
+        "security.jwt.secret-key=bG9hZC10ZXN0LXNlY3JldC1rZXktdGhhdC1pcy1hdC1sZWFzdC0yNTYtYml0cw==",
+        "security.jwt.expiration-time=3600000"
+})
+class ApiLoadTest {
+
+    private static final LoadTestSettings SETTINGS = LoadTestSettings.fromSystemProperties();
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void modelLatency(DynamicPropertyRegistry registry) {
+        registry.add("app.ai.stub.latency", () -> SETTINGS.geminiLatencyMillis() + "ms");
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    private List<SeededUser> users;
+    private List<String> tokens;
+
+    @BeforeAll
+    void seed() {
+        users = new LoadTestDataSeeder(jdbcTemplate).seed(SETTINGS, passwordEncoder.encode("load-test"));
+        tokens = users.stream()
+                .map(user -> jwtService.generateToken(new AuthenticatedUser(user.id(), user.username(), true)))
+                .toList();
+    }
+
+    @Test
+    void measureEndpoints() throws Exception {
+        List<EndpointResult> results = new ArrayList<>();
+        results.add(run("GET /note", user -> get("/note")));
+        results.add(run("GET /note/recent", user -> get("/note/recent")));
+        results.add(run("GET /note/search", user -> get("/note/search?query=lorem%20ipsum")));
+        results.add(run("GET /groups", user -> get("/groups")));
+        results.add(run("GET /trash", user -> get("/trash")));
+        results.add(run("GET /trash/page", user -> get("/trash/page")));
+        results.add(run("GET /note/{id}/chat", user -> get("/note/" + users.get(user).noteId() + "/chat")));
+        results.add(run("POST /note/{id}/chat", user -> post("/note/" + users.get(user).noteId() + "/chat",
+                "{\"message\":\"Summarize this note\"}")));
+
+        report(results);
+        for (EndpointResult result : results) {
+            assertEquals(0, result.errors(), "Failed requests on " + result.endpoint());
+        }
+    }
+
+    private EndpointResult run(String endpoint, Function<Integer, HttpRequest.Builder> request) throws Exception {
+        // Warm up JIT, connection pool and caches before measuring
+        drive(Math.max(1, SETTINGS.requestsPerEndpoint() / 10), request);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long statementsBefore = statistics.getPrepareStatementCount();
+        long start = System.nanoTime();
+        Drive drive = drive(SETTINGS.requestsPerEndpoint(), request);
+        long elapsed = System.nanoTime() - start;
+        long statements = statistics.getPrepareStatementCount() - statementsBefore;
+
+        return new EndpointResult(endpoint, drive.latenciesNanos(), drive.errors(), elapsed, statements);
+    }
+
+    /**
+     * Sends the requests from a fixed number of workers; request i is made as user i modulo the user count.
+     */
+    private Drive drive(int requests, Function<Integer, HttpRequest.Builder> request) throws Exception {
+        long[] latencies = new long[requests];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(SETTINGS.concurrency());
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < SETTINGS.concurrency(); w++) {
+                futures.add(workers.submit(() -> {
+                    int i;
+                    while ((i = next.getAndIncrement()) < requests) {
+                        int user = i % users.size();
+                        HttpRequest httpRequest = request.apply(user)
+                                .header("Authorization", "Bearer " + tokens.get(user))
+                                .timeout(Duration.ofSeconds(60))
+                                .build();
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = httpClient.send(httpRequest, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() >= 400) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (IOException e) {
+                            errors.incrementAndGet();
+                        }
+                        latencies[i] = System.nanoTime() - start;
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+        return new Drive(latencies, errors.get());
+    }
+
+    private HttpRequest.Builder get(String path) {
+        return HttpRequest.newBuilder(uri(path)).GET();
+    }
+
+    private HttpRequest.Builder post(String path, String json) {
+        return HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json));
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private void report(List<EndpointResult> results) throws IOException {
+        StringBuilder report = new StringBuilder();
+        report.append(SETTINGS).append('\n');
+        report.append(EndpointResult.header()).append('\n');
+        for (EndpointResult result : results) {
+            report.append(result.row()).append('\n');
+        }
+        System.out.println(report);
+        Files.writeString(Path.of("target", "loadtest-report.txt"), report);
+    }
+
+    private record Drive(long[] latenciesNanos, int errors) {
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.demo.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency distribution and query count of one endpoint scenario.
+ */
+record EndpointResult(String endpoint, long[] latenciesNanos, int errors, long elapsedNanos, long statements) {
+
+    EndpointResult {
+        latenciesNanos = latenciesNanos.clone();
+        Arrays.sort(latenciesNanos);
+    }
+
+    int requests() {
+        return latenciesNanos.length;
+    }
+
+    /**
+     * Nearest-rank percentile in milliseconds.
+     */
+    double percentileMillis(double percentile) {
+        if (latenciesNanos.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100.0 * latenciesNanos.length);
+        return latenciesNanos[Math.max(0, rank - 1)] / 1_000_000.0;
+    }
+
+    double throughputPerSecond() {
+        return elapsedNanos == 0 ? 0 : requests() * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    double statementsPerRequest() {
+        return requests() == 0 ? 0 : statements / (double) requests();
+    }
+
+    static String header() {
+        return String.format("%-28s %8s %7s %9s %9s %9s %9s %9s %10s",
+                "endpoint", "requests", "errors", "p50 ms", "p95 ms", "p99 ms", "max ms", "req/s", "queries/req");
+    }
+
+    String row() {
+        return String.format("%-28s %8d %7d %9.1f %9.1f %9.1f %9.1f %9.1f %10.1f",
+                endpoint, requests(), errors, percentileMillis(50), percentileMillis(95), percentileMillis(99),
+                percentileMillis(100), throughputPerSecond(), statementsPerRequest());
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.demo.loadtest;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+/**
+ * Seeds users, notes, collaborators, chat messages, groups and trash directly
+ * with set-based SQL, which keeps large data sets fast to create. All seeded
+ * users share the "lt-user-" prefix.
+ */
+class LoadTestDataSeeder {
+
+    static final String USERNAME_PREFIX = "lt-user-";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    LoadTestDataSeeder(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @param passwordHash Encoded password shared by all users
+     * @return The seeded users, ordered by id
+     */
+    List<SeededUser> seed(LoadTestSettings settings, String passwordHash) {
+        jdbcTemplate.update("""
+                INSERT INTO users (username, email, password, enabled)
+                SELECT ? || g, ? || g || '@example.com', ?, true
+                FROM generate_series(1, ?) g
+                """, USERNAME_PREFIX, USERNAME_PREFIX, passwordHash, settings.users());
+
+        jdbcTemplate.update("""
+                INSERT INTO notes (title, content, created_at, last_activity, user_id)
+                SELECT 'Note ' || n || ' of ' || u.username,
+                       repeat('lorem ipsum dolor sit amet consectetur ', ? / 6 + 1),
+                       now() - make_interval(days => n),
+                       now() - make_interval(mins => n * 37),
+                       u.id
+                FROM users u CROSS JOIN generate_series(1, ?) n
+                WHERE u.username LIKE ?
+                """, settings.noteContentWords(), settings.notesPerUser(), USERNAME_PREFIX + "%");
+
+        // Collaborators are the users following the owner, wrapping around
+        jdbcTemplate.update("""
+                INSERT INTO note_collaborators (note_id, user_id)
+                SELECT n.id, c.id
+                FROM notes n
+                JOIN users o ON o.id = n.user_id
+                JOIN LATERAL (
+                    SELECT u.id FROM users u
+                    WHERE u.username LIKE ? AND u.id <> o.id
+                    ORDER BY u.id <= o.id, u.id
+                    LIMIT ?
+                ) c ON true
+                WHERE o.username LIKE ?
+                """, USERNAME_PREFIX + "%", settings.collaboratorsPerNote(), USERNAME_PREFIX + "%");
+
+        jdbcTemplate.update("""
+                INSERT INTO ai_chat_message (note_id, role, content, created_at)
+                SELECT n.id,
+                       CASE WHEN m % 2 = 1 THEN 'USER' ELSE 'MODEL' END,
+                       'Message ' || m || ': ' || repeat('a chat line about this note ', 8),
+                       n.created_at + make_interval(mins => m)
+                FROM notes n
+                JOIN users o ON o.id = n.user_id
+                CROSS JOIN generate_series(1, ?) m
+                WHERE o.username LIKE ?
+                """, settings.messagesPerNote(), USERNAME_PREFIX + "%");
+
+        jdbcTemplate.update("""
+                INSERT INTO groups (name, owner_id)
+                SELECT 'Group of ' || u.username, u.id
+                FROM users u
+                WHERE u.username LIKE ?
+                """, USERNAME_PREFIX + "%");
+
+        jdbcTemplate.update("""
+                INSERT INTO group_members (group_id, user_id)
+                SELECT g.id, m.id
+                FROM groups g
+                JOIN users o ON o.id = g.owner_id
+                JOIN LATERAL (
+                    SELECT u.id FROM users u
+                    WHERE u.username LIKE ? AND u.id <> o.id
+                    ORDER BY u.id <= o.id, u.id
+                    LIMIT ?
+                ) m ON true
+                WHERE o.username LIKE ?
+                """, USERNAME_PREFIX + "%", settings.groupMembers(), USERNAME_PREFIX + "%");
+
+        // Seeded outside GroupService, so the denormalized counter is set here
+        jdbcTemplate.update("""
+                UPDATE groups g SET member_count = (SELECT count(*) FROM group_members m WHERE m.group_id = g.id)
+                WHERE g.owner_id IN (SELECT id FROM users WHERE username LIKE ?)
+                """, USERNAME_PREFIX + "%");
+
+        jdbcTemplate.update("""
+                INSERT INTO trash (title, content, created_at, deleted_at, original_note_id, user_id, collaborators_info,
+                                   collaborator_count)
+                SELECT 'Trashed ' || t || ' of ' || u.username,
+                       repeat('lorem ipsum dolor sit amet consectetur ', ? / 6 + 1),
+                       now() - make_interval(days => t + 30),
+                       now() - make_interval(hours => t),
+                       NULL,
+                       u.id,
+                       '1,2',
+                       2
+                FROM users u CROSS JOIN generate_series(1, ?) t
+                WHERE u.username LIKE ?
+                """, settings.noteContentWords(), settings.trashPerUser(), USERNAME_PREFIX + "%");
+
+        jdbcTemplate.execute("ANALYZE");
+
+        return jdbcTemplate.query("""
+                SELECT u.id, u.username, (SELECT min(n.id) FROM notes n WHERE n.user_id = u.id) AS note_id
+                FROM users u
+                WHERE u.username LIKE ?
+                ORDER BY u.id
+                """,
+                (rs, rowNum) -> new SeededUser(rs.getLong("id"), rs.getString("username"), rs.getLong("note_id")),
+                USERNAME_PREFIX + "%");
+    }
+
+    /**
+     * @param noteId A note owned by the user, used for the chat endpoint
+     */
+    record SeededUser(Long id, String username, Long noteId) {
+    }
+}
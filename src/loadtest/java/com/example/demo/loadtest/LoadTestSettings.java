@@ -0,0 +1,33 @@
+package com.example.demo.loadtest;
+
+/**
+ * Data volumes and load shape of a load-test run, read from system properties
+ * so that a run can be resized from the command line, e.g.
+ * ./mvnw -P loadtest test -Dloadtest.users=200 -Dloadtest.concurrency=64
+ */
+record LoadTestSettings(
+        int users,
+        int notesPerUser,
+        int collaboratorsPerNote,
+        int messagesPerNote,
+        int trashPerUser,
+        int groupMembers,
+        int noteContentWords,
+        int concurrency,
+        int requestsPerEndpoint,
+        int geminiLatencyMillis) {
+
+    static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings(
+                Integer.getInteger("loadtest.users", 50),
+                Integer.getInteger("loadtest.notes-per-user", 200),
+                Integer.getInteger("loadtest.collaborators-per-note", 2),
+                Integer.getInteger("loadtest.messages-per-note", 20),
+                Integer.getInteger("loadtest.trash-per-user", 20),
+                Integer.getInteger("loadtest.group-members", 5),
+                Integer.getInteger("loadtest.note-content-words", 300),
+                Integer.getInteger("loadtest.concurrency", 16),
+                Integer.getInteger("loadtest.requests", 500),
+                Integer.getInteger("loadtest.gemini-latency-ms", 800));
+    }
+}
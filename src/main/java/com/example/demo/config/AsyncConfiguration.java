@@ -0,0 +1,21 @@
+package com.example.demo.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class AsyncConfiguration {
+
+    /**
+     * Runs AI chat turns off the servlet threads. Virtual threads, so a slow model
+     * only parks a cheap thread; database capacity is protected by the turns'
+     * short transactions, not by this executor.
+     */
+    @Bean(destroyMethod = "close")
+    ExecutorService aiChatExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.demo.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Applies the PostgreSQL-specific schema objects that Hibernate's
+ * ddl-auto=update cannot express through entity annotations
+ * (generated columns, GIN indexes, ...).
+ * Every statement is idempotent, so it is safe to run on each startup.
+ */
+@Slf4j
+@Component
+public class DatabaseSchemaInitializer implements ApplicationRunner {
+
+    private static final List<String> STATEMENTS = List.of(
+            // Reconciles the denormalized group counters; only rows that drifted are written
+            "UPDATE groups g SET member_count = c.members, task_count = c.tasks, "
+                    + "open_task_count = c.open_tasks, note_count = c.notes "
+                    + "FROM (SELECT g2.id, "
+                    + "(SELECT count(*) FROM group_members m WHERE m.group_id = g2.id) AS members, "
+                    + "(SELECT count(*) FROM group_tasks t WHERE t.group_id = g2.id) AS tasks, "
+                    + "(SELECT count(*) FROM group_tasks t WHERE t.group_id = g2.id AND NOT t.completed) AS open_tasks, "
+                    + "(SELECT count(*) FROM notes n WHERE n.group_id = g2.id AND n.deleted_at IS NULL) AS notes "
+                    + "FROM groups g2) c "
+                    + "WHERE c.id = g.id AND (g.member_count, g.task_count, g.open_task_count, g.note_count) "
+                    + "IS DISTINCT FROM (c.members, c.tasks, c.open_tasks, c.notes)",
+            // Soft-deleted notes: the per-user trash listing and the retention purge
+            "CREATE INDEX IF NOT EXISTS idx_notes_trash ON notes (user_id, deleted_at DESC, id DESC) WHERE deleted_at IS NOT NULL",
+            "CREATE INDEX IF NOT EXISTS idx_notes_trash_expiry ON notes (deleted_at) WHERE deleted_at IS NOT NULL",
+            // Backfills collaborator_count for trash rows written before the column existed
+            "UPDATE trash SET collaborator_count = cardinality(string_to_array(collaborators_info, ',')) "
+                    + "WHERE collaborator_count = 0 AND collaborators_info <> ''");
+
+    /** Only needed when notes are searched with PostgreSQL full-text search. */
+    private static final List<String> FULL_TEXT_SEARCH_STATEMENTS = List.of(
+            // Full-text search document over title (weight A) and content (weight B)
+            "ALTER TABLE notes ADD COLUMN IF NOT EXISTS search_vector tsvector GENERATED ALWAYS AS ("
+                    + "setweight(to_tsvector('english', coalesce(title, '')), 'A') || "
+                    + "setweight(to_tsvector('english', coalesce(content, '')), 'B')) STORED",
+            "CREATE INDEX IF NOT EXISTS idx_notes_search_vector ON notes USING GIN (search_vector)");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String searchEngine;
+
+    public DatabaseSchemaInitializer(JdbcTemplate jdbcTemplate,
+            @Value("${app.search.engine:postgres}") String searchEngine) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.searchEngine = searchEngine;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        List<String> statements = new ArrayList<>(STATEMENTS);
+        if ("postgres".equals(searchEngine)) {
+            statements.addAll(FULL_TEXT_SEARCH_STATEMENTS);
+        }
+        for (String statement : statements) {
+            try {
+                jdbcTemplate.execute(statement);
+            } catch (DataAccessException e) {
+                log.error("Could not apply schema statement: {}", statement, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.demo.config;
+
+import com.example.demo.observability.QueryCountingStatementInspector;
+import com.example.demo.observability.QueryCountingStatistics;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Hibernate settings that are not expressed through spring.jpa.* properties.
+ */
+@Configuration
+public class HibernateConfiguration {
+
+    /** Setting read by Hibernate's StatisticsInitiator to build the statistics implementation. */
+    private static final String STATS_FACTORY = "hibernate.stats.factory";
+
+    /**
+     * JDBC batching for the statements Hibernate flushes itself, e.g. the
+     * cascaded deletes of emptyTrash and orphan removal. Ordering groups the
+     * statements by table so that batches are not broken up. Inserts into
+     * IDENTITY tables cannot be batched; bulk paths use set-based SQL instead.
+     */
+    @Bean
+    HibernatePropertiesCustomizer jdbcBatchingCustomizer(
+            @Value("${app.jpa.batch-size:50}") int batchSize) {
+        return properties -> {
+            properties.put(AvailableSettings.STATEMENT_BATCH_SIZE, batchSize);
+            properties.put(AvailableSettings.ORDER_INSERTS, true);
+            properties.put(AvailableSettings.ORDER_UPDATES, true);
+            properties.put(AvailableSettings.BATCH_VERSIONED_DATA, true);
+        };
+    }
+
+    /**
+     * Per-request query counting, see QueryMetricsFilter. Entity and row counts
+     * come from Hibernate statistics, which are switched on for this.
+     */
+    @Bean
+    HibernatePropertiesCustomizer queryMetricsCustomizer(
+            @Value("${app.query-metrics.enabled:true}") boolean enabled) {
+        return properties -> {
+            if (!enabled) {
+                return;
+            }
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, new QueryCountingStatementInspector());
+            properties.put(STATS_FACTORY, QueryCountingStatistics.FACTORY);
+            properties.put(AvailableSettings.GENERATE_STATISTICS, true);
+        };
+    }
+}
@@ -1,15 +1,18 @@
 package com.example.demo.config;
 
+import com.example.demo.service.UserService;
+import com.example.demo.service.auth.AuthenticatedUser;
 import com.example.demo.service.auth.JwtService;
+import com.example.demo.service.auth.TokenRevocationList;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -20,12 +23,24 @@ import java.io.IOException;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
-    private final UserDetailsService userDetailsService;
+    private final UserService userService;
+    private final TokenRevocationList tokenRevocationList;
+
+    /**
+     * In stateless mode the principal is built from the token's uid/enabled
+     * claims and checked against the revocation list, without touching the
+     * database. Tokens issued without these claims fall back to the lookup.
+     */
+    private final boolean stateless;
 
     // REMOVED: HandlerExceptionResolver is no longer needed here.
-    public JwtAuthenticationFilter(JwtService jwtService, UserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(JwtService jwtService, UserService userService,
+            TokenRevocationList tokenRevocationList,
+            @Value("${security.jwt.stateless:false}") boolean stateless) {
         this.jwtService = jwtService;
-        this.userDetailsService = userDetailsService;
+        this.userService = userService;
+        this.tokenRevocationList = tokenRevocationList;
+        this.stateless = stateless;
     }
 
     @Override
@@ -45,13 +60,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         // Let JWT exceptions propagate up to Spring Security's machinery.
 
         final String jwt = authHeader.substring(7);
-        final String userEmail = jwtService.extractUsername(jwt);
+        // The signature is verified exactly once; everything below works on the parsed claims
+        final Claims claims = jwtService.parseClaims(jwt);
+        final String userEmail = claims.getSubject();
 
         // Check if user is not already authenticated
         if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
+            AuthenticatedUser userDetails = resolveUser(claims);
 
-            if (jwtService.isTokenValid(jwt, userDetails)) {
+            if (userDetails != null && userDetails.isEnabled() && jwtService.isTokenValid(claims, userDetails)) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails,
                         null,
@@ -65,4 +82,18 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         // Always continue the filter chain.
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * @return The principal of the token, or null if the token was revoked
+     */
+    private AuthenticatedUser resolveUser(Claims claims) {
+        if (stateless) {
+            AuthenticatedUser fromClaims = jwtService.toAuthenticatedUser(claims);
+            if (fromClaims != null) {
+                return tokenRevocationList.isRevoked(fromClaims.id(), claims.getIssuedAt()) ? null : fromClaims;
+            }
+        }
+        // Served from the identity cache, so most requests do not query the users table
+        return userService.getAuthenticatedUser(claims.getSubject());
+    }
 }
\ No newline at end of file
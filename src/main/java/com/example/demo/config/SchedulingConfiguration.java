@@ -0,0 +1,30 @@
+package com.example.demo.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Enables the background jobs, e.g. TrashRetentionPurger.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfiguration {
+
+    /**
+     * Runs the scheduled jobs on a small bounded pool, so they cannot take more
+     * than pool-size database connections however long a run takes. On shutdown
+     * running jobs are interrupted and given a few seconds to stop; the trash
+     * purge checks for that between chunks.
+     */
+    @Bean
+    ThreadPoolTaskScheduler taskScheduler(@Value("${app.scheduling.pool-size:2}") int poolSize) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadNamePrefix("scheduled-");
+        scheduler.setAwaitTerminationSeconds(10);
+        return scheduler;
+    }
+}
@@ -1,15 +1,19 @@
 package com.example.demo.controller;
 
 import com.example.demo.dto.AiChatMessageDto;
+import com.example.demo.dto.ChatHistoryPageDto;
 import com.example.demo.dto.SendMessageRequestDto;
 import com.example.demo.service.ai.AiChatService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import jakarta.validation.Valid;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/note/{noteId}/chat")
@@ -23,14 +27,28 @@ public class AiChatController {
      * and gets a response from the AI.
      */
     @PostMapping
-    public ResponseEntity<AiChatMessageDto> sendMessage(
+    public CompletableFuture<ResponseEntity<AiChatMessageDto>> sendMessage(
             @PathVariable Long noteId,
             @Valid @RequestBody SendMessageRequestDto request,
             @AuthenticationPrincipal UserDetails userDetails) {
 
         String username = userDetails.getUsername();
-        AiChatMessageDto aiResponse = aiChatService.sendMessage(noteId, request.getMessage(), username);
-        return ResponseEntity.ok(aiResponse);
+        // Completes asynchronously; no servlet thread waits for the model
+        return aiChatService.sendMessage(noteId, request.getMessage(), username)
+                .thenApply(ResponseEntity::ok);
+    }
+
+    /**
+     * Sends a new message and streams the AI response as server-sent events:
+     * "token" events with text chunks, then a "done" event with the saved message.
+     */
+    @PostMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamMessage(
+            @PathVariable Long noteId,
+            @Valid @RequestBody SendMessageRequestDto request,
+            @AuthenticationPrincipal UserDetails userDetails) {
+
+        return aiChatService.streamMessage(noteId, request.getMessage(), userDetails.getUsername());
     }
 
     /**
@@ -45,4 +63,18 @@ public class AiChatController {
         List<AiChatMessageDto> history = aiChatService.getChatHistory(noteId, username);
         return ResponseEntity.ok(history);
     }
+
+    /**
+     * Retrieves one page of the chat history: the latest messages, or the ones
+     * before or after a message ID.
+     */
+    @GetMapping("/page")
+    public ChatHistoryPageDto getChatHistoryPage(
+            @PathVariable Long noteId,
+            @RequestParam(required = false) Long before,
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "50") int size,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        return aiChatService.getChatHistoryPage(noteId, before, after, size, userDetails.getUsername());
+    }
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.example.demo.controller;
 
 import com.example.demo.dto.GroupDto;
+import com.example.demo.dto.GroupSummaryDto;
 import com.example.demo.dto.GroupTaskDto;
 import com.example.demo.dto.NoteDto;
 import com.example.demo.dto.UserDto;
@@ -35,6 +36,14 @@ public class GroupController {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Lists the user's groups with counts only, without nested members, tasks and notes.
+     */
+    @GetMapping("/summary")
+    public List<GroupSummaryDto> getGroupSummaries(@AuthenticationPrincipal UserDetails userDetails) {
+        return groupService.getGroupSummariesForUser(userDetails.getUsername());
+    }
+
     @PostMapping
     public GroupDto createGroup(@RequestBody CreateGroupRequest request, @AuthenticationPrincipal UserDetails userDetails) {
         return new GroupDto(groupService.createGroup(request.getName(), userDetails.getUsername()));
@@ -1,16 +1,25 @@
 package com.example.demo.controller;
 
+import com.example.demo.dto.NoteCreateRequestDto;
+import com.example.demo.dto.NoteDetailsDto;
 import com.example.demo.dto.NoteListItemDto;
+import com.example.demo.dto.NotePageDto;
+import com.example.demo.dto.NotePatchRequestDto;
+import com.example.demo.dto.NoteSearchResultDto;
+import com.example.demo.dto.NoteUpdateRequestDto;
 import com.example.demo.dto.RecentNotesDto;
-import com.example.demo.model.Note;
 import com.example.demo.service.NoteService;
+import com.example.demo.service.NoteVersionConflictException;
+import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/note")
@@ -24,35 +33,62 @@ public class NoteController {
         return noteService.getNoteListItemsForUser(userDetails.getUsername());
     }
 
+    @GetMapping("/page")
+    public NotePageDto getMyNotesPage(@RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        return noteService.getNotePageForUser(cursor, size, userDetails.getUsername());
+    }
+
     @GetMapping("/recent")
     public RecentNotesDto getRecentNotes(@AuthenticationPrincipal UserDetails userDetails) {
         return noteService.getRecentNotesForUser(userDetails.getUsername());
     }
 
     @GetMapping("/search")
-    public List<NoteListItemDto> searchNotes(@RequestParam String query,
+    public List<NoteSearchResultDto> searchNotes(@RequestParam String query,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "" + NoteService.DEFAULT_SEARCH_PAGE_SIZE) int size,
             @AuthenticationPrincipal UserDetails userDetails) {
-        return noteService.searchNotesForUser(query, userDetails.getUsername());
+        return noteService.searchNotesForUser(query, page, size, userDetails.getUsername());
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Note> getNoteById(@PathVariable Long id, @AuthenticationPrincipal UserDetails userDetails) {
-        Note note = noteService.getNoteByIdForUser(id, userDetails.getUsername());
+    public ResponseEntity<NoteDetailsDto> getNoteById(@PathVariable Long id, @AuthenticationPrincipal UserDetails userDetails) {
+        NoteDetailsDto note = noteService.getNoteByIdForUser(id, userDetails.getUsername());
         return ResponseEntity.ok(note);
     }
 
     @PostMapping
-    public Note createNote(@RequestBody Note note, @AuthenticationPrincipal UserDetails userDetails) {
-        return noteService.createNote(note, userDetails.getUsername());
+    public NoteDetailsDto createNote(@Valid @RequestBody NoteCreateRequestDto request,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        return noteService.createNote(request, userDetails.getUsername());
     }
 
     @PatchMapping("/{id}")
-    public ResponseEntity<Note> updateNote(@PathVariable Long id, @RequestBody Note note,
+    public ResponseEntity<NoteDetailsDto> updateNote(@PathVariable Long id, @Valid @RequestBody NoteUpdateRequestDto request,
             @AuthenticationPrincipal UserDetails userDetails) {
-        Note updatedNote = noteService.updateNote(id, note, userDetails.getUsername());
+        NoteDetailsDto updatedNote = noteService.updateNote(id, request, userDetails.getUsername());
         return ResponseEntity.ok(updatedNote);
     }
 
+    /**
+     * Applies text edits made against a base version of the note and returns the
+     * new version; 409 if the note has changed since the base version.
+     */
+    @PatchMapping("/{id}/content")
+    public ResponseEntity<?> patchNote(@PathVariable Long id, @Valid @RequestBody NotePatchRequestDto request,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        try {
+            return ResponseEntity.ok(noteService.patchNote(id, request, userDetails.getUsername()));
+        } catch (NoteVersionConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("message", e.getMessage(), "currentVersion", e.getCurrentVersion()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<?> deleteNote(@PathVariable Long id, @AuthenticationPrincipal UserDetails userDetails) {
         noteService.deleteNote(id, userDetails.getUsername());
@@ -1,7 +1,11 @@
 package com.example.demo.controller;
 
+import com.example.demo.dto.BulkIdsRequestDto;
+import com.example.demo.dto.BulkResultDto;
 import com.example.demo.dto.TrashDto;
+import com.example.demo.dto.TrashPageDto;
 import com.example.demo.service.TrashService;
+import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -28,6 +32,15 @@ public class TrashController {
         return ResponseEntity.ok().build();
     }
 
+    /**
+     * Move several notes to trash
+     */
+    @PostMapping("/move")
+    public BulkResultDto moveToTrash(@Valid @RequestBody BulkIdsRequestDto request,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        return trashService.moveToTrash(request.getIds(), userDetails.getUsername());
+    }
+
     /**
      * Get all trashed items for the user
      */
@@ -36,6 +49,17 @@ public class TrashController {
         return trashService.getTrashedItems(userDetails.getUsername());
     }
 
+    /**
+     * Get one page of the user's trash, with content previews instead of the
+     * full content
+     */
+    @GetMapping("/page")
+    public TrashPageDto getTrashPage(@RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        return trashService.getTrashPage(cursor, size, userDetails.getUsername());
+    }
+
     /**
      * Restore a note from trash
      */
@@ -45,6 +69,24 @@ public class TrashController {
         return ResponseEntity.ok().build();
     }
 
+    /**
+     * Restore several notes from trash
+     */
+    @PostMapping("/restore")
+    public BulkResultDto restoreFromTrash(@Valid @RequestBody BulkIdsRequestDto request,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        return trashService.restoreFromTrash(request.getIds(), userDetails.getUsername());
+    }
+
+    /**
+     * Permanently delete several items from trash
+     */
+    @PostMapping("/delete")
+    public BulkResultDto permanentlyDelete(@Valid @RequestBody BulkIdsRequestDto request,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        return trashService.permanentlyDelete(request.getIds(), userDetails.getUsername());
+    }
+
     /**
      * Permanently delete a note from trash
      */
@@ -1,7 +1,7 @@
 
 package com.example.demo.controller;
 
-import com.example.demo.model.User;
+import com.example.demo.dto.CurrentUserDto;
 import com.example.demo.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -18,7 +18,7 @@ public class UserController {
     private UserService userService;
 
     @GetMapping("/me")
-    public User getMe(@AuthenticationPrincipal UserDetails userDetails) {
-        return userService.getUserByUsername(userDetails.getUsername());
+    public CurrentUserDto getMe(@AuthenticationPrincipal UserDetails userDetails) {
+        return userService.getCurrentUser(userDetails.getUsername());
     }
 }
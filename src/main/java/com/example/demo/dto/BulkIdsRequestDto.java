@@ -0,0 +1,15 @@
+package com.example.demo.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BulkIdsRequestDto {
+    @NotEmpty(message = "ids cannot be empty")
+    @Size(max = 1000, message = "At most 1000 ids per request")
+    private List<@NotNull(message = "ids cannot contain null") Long> ids;
+}
@@ -0,0 +1,8 @@
+package com.example.demo.dto;
+
+/**
+ * Outcome of a bulk operation. IDs that do not exist or belong to another user
+ * are skipped, so affected can be lower than requested.
+ */
+public record BulkResultDto(int requested, int affected) {
+}
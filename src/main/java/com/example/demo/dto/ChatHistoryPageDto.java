@@ -0,0 +1,18 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * A page of a note's chat history, always in chronological order.
+ * hasMore tells whether more messages exist in the direction that was paged
+ * (older for a before cursor or the latest page, newer for an after cursor).
+ */
+@Data
+@AllArgsConstructor
+public class ChatHistoryPageDto {
+    private List<AiChatMessageDto> messages;
+    private boolean hasMore;
+}
@@ -0,0 +1,8 @@
+package com.example.demo.dto;
+
+/**
+ * The signed-in user's own profile. Never carries the password hash or the
+ * verification code.
+ */
+public record CurrentUserDto(Long id, String username, String email, String picture, boolean enabled) {
+}
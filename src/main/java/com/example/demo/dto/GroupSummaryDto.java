@@ -0,0 +1,21 @@
+package com.example.demo.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Lightweight variant of GroupDto for listings: counts instead of the nested
+ * members, tasks and notes.
+ */
+@Data
+@NoArgsConstructor
+public class GroupSummaryDto {
+    private Long id;
+    private String name;
+    private String subject;
+    private UserDto owner;
+    private int memberCount;
+    private int taskCount;
+    private int openTaskCount;
+    private int noteCount;
+}
@@ -0,0 +1,15 @@
+package com.example.demo.dto;
+
+import jakarta.validation.constraints.Size;
+
+/**
+ * The fields a client may set when creating a note; owner, version and the
+ * timestamps are set by the server.
+ *
+ * @param groupId The group to create the note in, or null for a personal note
+ */
+public record NoteCreateRequestDto(
+        @Size(max = 255, message = "title can have at most 255 characters") String title,
+        String content,
+        Long groupId) {
+}
@@ -0,0 +1,39 @@
+package com.example.demo.dto;
+
+import com.example.demo.model.Note;
+
+import java.time.LocalDateTime;
+
+/**
+ * A single note as returned by the REST API. Reads fill it through a
+ * constructor expression; writes map the saved entity with {@link #from(Note, int)}.
+ * version is the base version for delta updates of the note.
+ */
+public record NoteDetailsDto(
+        Long id,
+        String title,
+        String content,
+        LocalDateTime createdAt,
+        LocalDateTime lastActivity,
+        Long ownerId,
+        Long groupId,
+        int participantCount,
+        long version) {
+
+    /**
+     * @param participantCount The owner plus the collaborators, counted by the
+     *                         caller so the lazy collaborator set is not loaded
+     */
+    public static NoteDetailsDto from(Note note, int participantCount) {
+        return new NoteDetailsDto(
+                note.getId(),
+                note.getTitle(),
+                note.getContent(),
+                note.getCreatedAt(),
+                note.getLastActivity(),
+                note.getOwner().getId(),
+                note.getGroup() != null ? note.getGroup().getId() : null,
+                participantCount,
+                note.getVersion());
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * A single page of the note list.
+ * nextCursor is an opaque continuation token; it is null on the last page.
+ */
+@Data
+@AllArgsConstructor
+public class NotePageDto {
+    private List<NoteListItemDto> items;
+    private String nextCursor;
+}
@@ -0,0 +1,25 @@
+package com.example.demo.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Edits made to a note since baseVersion, applied in order. title is only
+ * changed when set.
+ */
+@Data
+public class NotePatchRequestDto {
+    @NotNull(message = "baseVersion is required")
+    private Long baseVersion;
+
+    @Size(max = 255, message = "title can have at most 255 characters")
+    private String title;
+
+    @Valid
+    @Size(max = 1000, message = "At most 1000 edits per request")
+    private List<TextEditDto> edits;
+}
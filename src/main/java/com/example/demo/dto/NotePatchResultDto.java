@@ -0,0 +1,10 @@
+package com.example.demo.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of a delta update; the content itself is not sent back. version is
+ * the base version for the next delta.
+ */
+public record NotePatchResultDto(Long id, long version, LocalDateTime lastActivity, int contentLength) {
+}
@@ -0,0 +1,17 @@
+package com.example.demo.dto;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * A note list item returned by search, with a highlighted excerpt of the
+ * matching content and its relevance score.
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@ToString(callSuper = true)
+public class NoteSearchResultDto extends NoteListItemDto {
+    private String snippet;
+    private double rank;
+}
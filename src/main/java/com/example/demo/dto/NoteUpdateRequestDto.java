@@ -0,0 +1,12 @@
+package com.example.demo.dto;
+
+import jakarta.validation.constraints.Size;
+
+/**
+ * A whole-note save: the new title and content. A note's group is fixed when it
+ * is created.
+ */
+public record NoteUpdateRequestDto(
+        @Size(max = 255, message = "title can have at most 255 characters") String title,
+        String content) {
+}
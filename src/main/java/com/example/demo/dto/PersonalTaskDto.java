@@ -1,12 +1,13 @@
-package com.example.demo.dto; // Create a new 'dto' package
+package com.example.demo.dto;
 
-import com.example.demo.model.User;
+import com.example.demo.model.PersonalTask;
 
-import lombok.Data;
+/**
+ * A personal task as returned by the REST API; the owner is always the caller.
+ */
+public record PersonalTaskDto(Long id, String text, boolean completed) {
 
-@Data // A shortcut for @Getter, @Setter, @ToString, @EqualsAndHashCode
-public class PersonalTaskDto {
-    private User owner;
-    private String text;
-    private boolean completed;
-}
\ No newline at end of file
+    public static PersonalTaskDto from(PersonalTask task) {
+        return new PersonalTaskDto(task.getId(), task.getText(), task.isCompleted());
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.demo.dto;
+
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+
+/**
+ * One edit of a note's content: delete characters starting at offset, then
+ * insert text there. Offsets count UTF-16 code units, like JavaScript string
+ * indices, and refer to the content as left by the previous edit.
+ */
+@Data
+public class TextEditDto {
+    @Min(value = 0, message = "offset cannot be negative")
+    private int offset;
+
+    @Min(value = 0, message = "delete cannot be negative")
+    private int delete;
+
+    private String insert;
+}
@@ -0,0 +1,17 @@
+package com.example.demo.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * A trashed item in the paged trash listing; preview holds at most the first
+ * app.trash.preview-chars characters of the content.
+ */
+public record TrashItemDto(
+        Long id,
+        String title,
+        String preview,
+        LocalDateTime createdAt,
+        LocalDateTime deletedAt,
+        Long originalNoteId,
+        int participantCount) {
+}
@@ -0,0 +1,10 @@
+package com.example.demo.dto;
+
+import java.util.List;
+
+/**
+ * A single page of the trash listing.
+ * nextCursor is an opaque continuation token; it is null on the last page.
+ */
+public record TrashPageDto(List<TrashItemDto> items, String nextCursor) {
+}
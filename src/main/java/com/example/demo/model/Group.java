@@ -4,6 +4,8 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.util.HashSet;
 import java.util.List;
@@ -14,7 +16,7 @@ import java.util.Set;
  * Each group has a single owner.
  */
 @Entity
-@Table(name = "groups")
+@Table(name = "groups", indexes = @Index(name = "idx_groups_owner", columnList = "owner_id"))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -27,6 +29,27 @@ public class Group {
     @Column(nullable = false, length = 100)
     private String name;
 
+    // --- Denormalized counters ---
+    // Kept in sync by GroupService through atomic UPDATEs (GroupRepository.adjust*)
+    // and reconciled on startup by DatabaseSchemaInitializer. Not updatable through
+    // the entity, so a stale in-memory value can never overwrite them.
+
+    @ColumnDefault("0")
+    @Column(name = "member_count", nullable = false, updatable = false)
+    private int memberCount;
+
+    @ColumnDefault("0")
+    @Column(name = "task_count", nullable = false, updatable = false)
+    private int taskCount;
+
+    @ColumnDefault("0")
+    @Column(name = "open_task_count", nullable = false, updatable = false)
+    private int openTaskCount;
+
+    @ColumnDefault("0")
+    @Column(name = "note_count", nullable = false, updatable = false)
+    private int noteCount;
+
     // --- Relationships ---
 
     /**
@@ -42,7 +65,9 @@ public class Group {
      * "group_members".
      */
     @ManyToMany
-    @JoinTable(name = "group_members", joinColumns = @JoinColumn(name = "group_id"), inverseJoinColumns = @JoinColumn(name = "user_id"))
+    @BatchSize(size = 50)
+    @JoinTable(name = "group_members", joinColumns = @JoinColumn(name = "group_id"), inverseJoinColumns = @JoinColumn(name = "user_id"),
+            indexes = @Index(name = "idx_group_members_user_group", columnList = "user_id, group_id"))
     private Set<User> members = new HashSet<>();
 
     /**
@@ -50,6 +75,7 @@ public class Group {
      * If a group is deleted, all its tasks are also deleted (CascadeType.ALL).
      */
     @OneToMany(mappedBy = "group", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = 50)
     private List<GroupTask> tasks;
 
     /**
@@ -57,6 +83,7 @@ public class Group {
      * If a group is deleted, all its notes are also deleted (CascadeType.ALL).
      */
     @OneToMany(mappedBy = "group", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = 50)
     private List<Note> notes;
 
     // --- Helper Methods for managing relationships ---
@@ -65,8 +92,8 @@ public class Group {
         this.members.add(user);
     }
 
-    public void removeMember(User user) {
-        this.members.remove(user);
+    public boolean removeMember(User user) {
+        return this.members.remove(user);
     }
 
     public void addTask(GroupTask task) {
@@ -0,0 +1,10 @@
+package com.example.demo.model;
+
+/**
+ * The relation of a user to a group, as used for authorization.
+ */
+public enum GroupRole {
+    OWNER, // Created the group
+    MEMBER, // Joined the group
+    NONE // No access
+}
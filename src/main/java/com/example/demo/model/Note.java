@@ -1,11 +1,14 @@
 package com.example.demo.model;
 
-import com.fasterxml.jackson.annotation.JsonManagedReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.SQLRestriction;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
@@ -17,9 +20,14 @@ import java.util.Set;
 /**
  * Represents a collaborative Note.
  * Each note has a single owner and can be shared with multiple collaborators.
+ * Notes in the trash (deletedAt set, app.trash.mode=soft) are filtered out of
+ * every entity and JPQL query; native queries must exclude them explicitly.
  */
 @Entity
-@Table(name = "notes")
+@Table(name = "notes", indexes = {
+        @Index(name = "idx_notes_owner_last_activity", columnList = "user_id, last_activity DESC, id")
+})
+@SQLRestriction("deleted_at IS NULL")
 @Getter
 @Setter
 @NoArgsConstructor
@@ -44,6 +52,25 @@ public class Note {
     @Column(name = "last_activity", nullable = false)
     private LocalDateTime lastActivity;
 
+    /**
+     * Incremented on every entity update. Delta updates are made against a base
+     * version and rejected when the note has changed since; see
+     * NoteService.patchNote.
+     */
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long version;
+
+    /**
+     * When the note was moved to the trash in soft-delete mode; null otherwise.
+     * Trashed notes are covered by the partial indexes idx_notes_trash and
+     * idx_notes_trash_expiry, see DatabaseSchemaInitializer.
+     */
+    @JsonIgnore
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
+
     // --- Relationships ---
 
     /**
@@ -62,8 +89,10 @@ public class Note {
 
     /**
      * The set of users who can collaborate on this note.
+     * Loaded in batches when many notes are listed, e.g. inside a group.
      */
     @ManyToMany(fetch = FetchType.LAZY)
+    @BatchSize(size = 50)
     @JoinTable(name = "note_collaborators", joinColumns = @JoinColumn(name = "note_id"), inverseJoinColumns = @JoinColumn(name = "user_id"))
     private Set<User> collaborators = new HashSet<>();
 
@@ -83,8 +112,24 @@ public class Note {
         return 1 + (collaborators != null ? collaborators.size() : 0);
     }
 
+    /**
+     * Rolling summary of the chat messages that no longer fit the prompt window,
+     * maintained by PromptContextBuilder.
+     */
+    @JsonIgnore
+    @Column(name = "chat_summary", columnDefinition = "TEXT")
+    private String chatSummary;
+
+    /**
+     * ID of the last chat message folded into chatSummary.
+     */
+    @JsonIgnore
+    @Column(name = "chat_summarized_until")
+    private Long chatSummarizedUntil;
+
+    // Never serialized with the note; clients page through /note/{id}/chat/page
     @OneToMany(mappedBy = "note", cascade = CascadeType.ALL, orphanRemoval = true)
-    @JsonManagedReference
+    @JsonIgnore
     @OrderBy("createdAt ASC")
     private List<AiChatMessage> aiChatHistory = new ArrayList<>();
 
@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 
 import java.time.LocalDateTime;
@@ -14,7 +15,10 @@ import java.time.LocalDateTime;
  * permanently deleted.
  */
 @Entity
-@Table(name = "trash")
+@Table(name = "trash", indexes = {
+        @Index(name = "idx_trash_deleted_at", columnList = "deleted_at"),
+        @Index(name = "idx_trash_owner_deleted_at", columnList = "user_id, deleted_at DESC, id DESC")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -53,6 +57,14 @@ public class Trash {
     @Column(name = "collaborators_info", columnDefinition = "TEXT")
     private String collaboratorsInfo;
 
+    /**
+     * Number of collaborators the note had when it was trashed, so listing the
+     * trash never has to parse collaboratorsInfo.
+     */
+    @ColumnDefault("0")
+    @Column(name = "collaborator_count", nullable = false)
+    private int collaboratorCount;
+
     /**
      * Constructor to create a Trash entity from a Note
      * 
@@ -74,6 +86,7 @@ public class Trash {
                 collaboratorsBuilder.append(collaborator.getId());
             }
             this.collaboratorsInfo = collaboratorsBuilder.toString();
+            this.collaboratorCount = note.getCollaborators().size();
         }
 
         this.owner = note.getOwner();
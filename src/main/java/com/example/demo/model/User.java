@@ -1,5 +1,6 @@
 package com.example.demo.model;
 
+import com.example.demo.service.auth.UserIdentityCacheInvalidator;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
@@ -17,6 +18,7 @@ import java.util.Collections;
  */
 @Entity
 @Table(name = "users")
+@EntityListeners(UserIdentityCacheInvalidator.class)
 @Getter
 @Setter
 @NoArgsConstructor // Provides a no-argument constructor, required by JPA
@@ -0,0 +1,64 @@
+package com.example.demo.observability;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.internal.StatisticsImpl;
+import org.hibernate.stat.spi.StatisticsFactory;
+
+/**
+ * Hibernate statistics that, besides the usual global counters, attribute entity
+ * loads, collection loads and query rows to the current request.
+ * Registered through hibernate.stats.factory.
+ */
+public class QueryCountingStatistics extends StatisticsImpl {
+
+    public static final StatisticsFactory FACTORY = QueryCountingStatistics::new;
+
+    public QueryCountingStatistics(SessionFactoryImplementor sessionFactory) {
+        super(sessionFactory);
+    }
+
+    @Override
+    public void loadEntity(String entityName) {
+        super.loadEntity(entityName);
+        RequestQueryStats stats = RequestQueryStats.current();
+        if (stats != null) {
+            stats.entityLoaded();
+        }
+    }
+
+    @Override
+    public void fetchEntity(String entityName) {
+        super.fetchEntity(entityName);
+        RequestQueryStats stats = RequestQueryStats.current();
+        if (stats != null) {
+            stats.entityLoaded();
+        }
+    }
+
+    @Override
+    public void loadCollection(String role) {
+        super.loadCollection(role);
+        RequestQueryStats stats = RequestQueryStats.current();
+        if (stats != null) {
+            stats.collectionLoaded();
+        }
+    }
+
+    @Override
+    public void fetchCollection(String role) {
+        super.fetchCollection(role);
+        RequestQueryStats stats = RequestQueryStats.current();
+        if (stats != null) {
+            stats.collectionLoaded();
+        }
+    }
+
+    @Override
+    public void queryExecuted(String hql, int rows, long time) {
+        super.queryExecuted(hql, rows, time);
+        RequestQueryStats stats = RequestQueryStats.current();
+        if (stats != null) {
+            stats.rowsFetched(rows);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.demo.observability;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Counts the SQL work of every HTTP request and publishes it per endpoint:
+ * app.request.sql.statements, app.request.sql.rows, app.request.sql.entity-loads
+ * and app.request.sql.collection-loads, tagged with method and uri pattern.
+ * Runs outside the security filter chain and, with open-session-in-view, also
+ * sees the lazy loads triggered while the response is serialized.
+ * Requests above app.query-metrics.warn-threshold statements are logged, which
+ * is usually an N+1 pattern.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "app.query-metrics.enabled", havingValue = "true", matchIfMissing = true)
+public class QueryMetricsFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+    private final long warnThreshold;
+
+    public QueryMetricsFilter(MeterRegistry meterRegistry,
+            @Value("${app.query-metrics.warn-threshold:50}") long warnThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.warnThreshold = warnThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+
+        RequestQueryStats stats = RequestQueryStats.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestQueryStats.stop();
+            request.setAttribute(RequestQueryStats.REQUEST_ATTRIBUTE, stats);
+            record(request, stats);
+        }
+    }
+
+    private void record(HttpServletRequest request, RequestQueryStats stats) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        Tags tags = Tags.of("method", request.getMethod(), "uri", uri);
+
+        summary("app.request.sql.statements", tags).record(stats.getStatements());
+        summary("app.request.sql.rows", tags).record(stats.getRows());
+        summary("app.request.sql.entity-loads", tags).record(stats.getEntityLoads());
+        summary("app.request.sql.collection-loads", tags).record(stats.getCollectionLoads());
+
+        if (stats.getStatements() > warnThreshold) {
+            log.warn("{} {} ran {} SQL statements ({}), possible N+1 query pattern",
+                    request.getMethod(), uri, stats.getStatements(), stats);
+        }
+    }
+
+    private DistributionSummary summary(String name, Tags tags) {
+        return DistributionSummary.builder(name)
+                .tags(tags)
+                .register(meterRegistry);
+    }
+}
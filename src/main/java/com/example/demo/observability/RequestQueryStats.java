@@ -0,0 +1,78 @@
+package com.example.demo.observability;
+
+/**
+ * SQL activity of one HTTP request: statements sent to the database, rows
+ * returned by queries, and entities/collections loaded by Hibernate. The
+ * counters of the current request are bound to the request thread; work done
+ * on other threads is not attributed to it.
+ */
+public final class RequestQueryStats {
+
+    /** Request attribute holding the finished stats, read by tests and error handlers. */
+    public static final String REQUEST_ATTRIBUTE = RequestQueryStats.class.getName();
+
+    private static final ThreadLocal<RequestQueryStats> CURRENT = new ThreadLocal<>();
+
+    private long statements;
+    private long rows;
+    private long entityLoads;
+    private long collectionLoads;
+
+    /**
+     * Starts counting for the current thread.
+     */
+    public static RequestQueryStats start() {
+        RequestQueryStats stats = new RequestQueryStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    /**
+     * @return The stats of the request running on this thread, or null outside of a request
+     */
+    public static RequestQueryStats current() {
+        return CURRENT.get();
+    }
+
+    public static void stop() {
+        CURRENT.remove();
+    }
+
+    void statementPrepared() {
+        statements++;
+    }
+
+    void rowsFetched(long count) {
+        rows += count;
+    }
+
+    void entityLoaded() {
+        entityLoads++;
+    }
+
+    void collectionLoaded() {
+        collectionLoads++;
+    }
+
+    public long getStatements() {
+        return statements;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getEntityLoads() {
+        return entityLoads;
+    }
+
+    public long getCollectionLoads() {
+        return collectionLoads;
+    }
+
+    @Override
+    public String toString() {
+        return "statements=" + statements + ", rows=" + rows
+                + ", entityLoads=" + entityLoads + ", collectionLoads=" + collectionLoads;
+    }
+}
@@ -1,8 +1,12 @@
 // src/main/java/com/example/demo/repository/AiChatMessageRepository.java
 package com.example.demo.repository;
 
+import com.example.demo.dto.AiChatMessageDto;
 import com.example.demo.model.AiChatMessage;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import java.util.List;
 
 public interface AiChatMessageRepository extends JpaRepository<AiChatMessage, Long> {
@@ -12,4 +16,43 @@ public interface AiChatMessageRepository extends JpaRepository<AiChatMessage, Lo
 
     // Find the most recent messages for context (e.g., last 10)
     List<AiChatMessage> findTop10ByNoteIdOrderByCreatedAtDesc(Long noteId);
+
+    // The most recent messages, newest first; the page size is the prompt window
+    List<AiChatMessage> findByNoteIdOrderByIdDesc(Long noteId, Pageable pageable);
+
+    // Messages that left the prompt window but are not in the rolling summary yet, oldest first
+    List<AiChatMessage> findByNoteIdAndIdBetweenOrderByIdAsc(Long noteId, Long fromId, Long toId, Pageable pageable);
+
+    // The whole history read straight into DTOs, oldest first
+    @Query("SELECT new com.example.demo.dto.AiChatMessageDto(m.id, m.role, m.content, m.createdAt) "
+            + "FROM AiChatMessage m WHERE m.note.id = :noteId ORDER BY m.createdAt ASC, m.id ASC")
+    List<AiChatMessageDto> findDtosByNoteId(@Param("noteId") Long noteId);
+
+    /*
+     * Keyset pages on (createdAt, id), served by idx_ai_chat_message_note_created.
+     * The cursor is a message id; its position is resolved in the same query.
+     */
+
+    // The latest messages, newest first
+    @Query("SELECT new com.example.demo.dto.AiChatMessageDto(m.id, m.role, m.content, m.createdAt) "
+            + "FROM AiChatMessage m WHERE m.note.id = :noteId ORDER BY m.createdAt DESC, m.id DESC")
+    List<AiChatMessageDto> findLatestDtos(@Param("noteId") Long noteId, Pageable pageable);
+
+    // Messages older than the cursor, newest first
+    @Query("SELECT new com.example.demo.dto.AiChatMessageDto(m.id, m.role, m.content, m.createdAt) "
+            + "FROM AiChatMessage m, AiChatMessage c "
+            + "WHERE c.id = :cursorId AND c.note.id = :noteId AND m.note.id = :noteId "
+            + "AND (m.createdAt < c.createdAt OR (m.createdAt = c.createdAt AND m.id < c.id)) "
+            + "ORDER BY m.createdAt DESC, m.id DESC")
+    List<AiChatMessageDto> findDtosBefore(@Param("noteId") Long noteId, @Param("cursorId") Long cursorId,
+            Pageable pageable);
+
+    // Messages newer than the cursor, oldest first
+    @Query("SELECT new com.example.demo.dto.AiChatMessageDto(m.id, m.role, m.content, m.createdAt) "
+            + "FROM AiChatMessage m, AiChatMessage c "
+            + "WHERE c.id = :cursorId AND c.note.id = :noteId AND m.note.id = :noteId "
+            + "AND (m.createdAt > c.createdAt OR (m.createdAt = c.createdAt AND m.id > c.id)) "
+            + "ORDER BY m.createdAt ASC, m.id ASC")
+    List<AiChatMessageDto> findDtosAfter(@Param("noteId") Long noteId, @Param("cursorId") Long cursorId,
+            Pageable pageable);
 }
\ No newline at end of file
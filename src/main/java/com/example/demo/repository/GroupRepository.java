@@ -2,10 +2,17 @@ package com.example.demo.repository;
 
 import com.example.demo.model.Group;
 import com.example.demo.model.User;
+import com.example.demo.repository.projection.GroupSummaryView;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface GroupRepository extends JpaRepository<Group, Long> {
@@ -25,4 +32,91 @@ public interface GroupRepository extends JpaRepository<Group, Long> {
      * @return A list of groups where the user is a member.
      */
     List<Group> findByMembersContains(User user);
+
+    /**
+     * Finds all groups the user owns or is a member of, in one query, with the
+     * owner fetched. Members, tasks, notes and note collaborators are lazy and
+     * batch fetched, so building the full group tree costs a fixed number of
+     * queries instead of several per group.
+     *
+     * @param userId The ID of the user.
+     * @return The groups, ordered by id.
+     */
+    @EntityGraph(attributePaths = "owner")
+    @Query("SELECT g FROM Group g " +
+            "WHERE g.owner.id = :userId " +
+            "OR EXISTS (SELECT 1 FROM g.members m WHERE m.id = :userId) " +
+            "ORDER BY g.id")
+    List<Group> findAllForUser(@Param("userId") Long userId);
+
+    /**
+     * Same groups as findAllForUser, as flat rows with the denormalized counters
+     * instead of the nested members, tasks and notes.
+     *
+     * @param userId The ID of the user.
+     * @return One summary per group, ordered by id.
+     */
+    @Query("SELECT g.id AS id, g.name AS name, o.id AS ownerId, o.username AS ownerUsername, " +
+            "g.memberCount AS memberCount, g.taskCount AS taskCount, " +
+            "g.openTaskCount AS openTaskCount, g.noteCount AS noteCount " +
+            "FROM Group g JOIN g.owner o " +
+            "WHERE o.id = :userId " +
+            "OR EXISTS (SELECT 1 FROM g.members m WHERE m.id = :userId) " +
+            "ORDER BY g.id")
+    List<GroupSummaryView> findSummariesForUser(@Param("userId") Long userId);
+
+    /**
+     * Resolves the user's role in a group with two index lookups, without
+     * loading the group or its members.
+     *
+     * @return OWNER, MEMBER or NONE; empty if the group does not exist
+     */
+    @Query(value = "SELECT CASE WHEN g.owner_id = :userId THEN 'OWNER' " +
+            "WHEN EXISTS (SELECT 1 FROM group_members m WHERE m.group_id = g.id AND m.user_id = :userId) THEN 'MEMBER' " +
+            "ELSE 'NONE' END " +
+            "FROM groups g WHERE g.id = :groupId", nativeQuery = true)
+    Optional<String> findRole(@Param("groupId") Long groupId, @Param("userId") Long userId);
+
+    /**
+     * @return 1 if the user was added, 0 if already a member
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO group_members (group_id, user_id) VALUES (:groupId, :userId) " +
+            "ON CONFLICT DO NOTHING", nativeQuery = true)
+    int addMember(@Param("groupId") Long groupId, @Param("userId") Long userId);
+
+    /**
+     * @return 1 if the user was removed, 0 if not a member
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM group_members WHERE group_id = :groupId AND user_id = :userId", nativeQuery = true)
+    int removeMember(@Param("groupId") Long groupId, @Param("userId") Long userId);
+
+    /**
+     * Atomically changes the member counter, without reading the group.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Group g SET g.memberCount = g.memberCount + :delta WHERE g.id = :groupId")
+    int adjustMemberCount(@Param("groupId") Long groupId, @Param("delta") int delta);
+
+    /**
+     * Atomically changes the total and open task counters, without reading the group.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Group g SET g.taskCount = g.taskCount + :taskDelta, " +
+            "g.openTaskCount = g.openTaskCount + :openTaskDelta WHERE g.id = :groupId")
+    int adjustTaskCounts(@Param("groupId") Long groupId, @Param("taskDelta") int taskDelta,
+            @Param("openTaskDelta") int openTaskDelta);
+
+    /**
+     * Atomically changes the note counter, without reading the group.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Group g SET g.noteCount = g.noteCount + :delta WHERE g.id = :groupId")
+    int adjustNoteCount(@Param("groupId") Long groupId, @Param("delta") int delta);
 }
\ No newline at end of file
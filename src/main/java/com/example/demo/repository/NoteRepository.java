@@ -1,10 +1,24 @@
 package com.example.demo.repository;
 
+import com.example.demo.dto.NoteDetailsDto;
 import com.example.demo.model.Note;
 import com.example.demo.model.User;
+import com.example.demo.repository.projection.NoteIndexSourceView;
+import com.example.demo.repository.projection.NoteListItemView;
+import com.example.demo.repository.projection.NoteSearchView;
+import com.example.demo.repository.projection.RecentNoteView;
+import com.example.demo.repository.projection.TrashListItemView;
+import com.example.demo.repository.projection.TrashedNoteView;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -48,6 +62,29 @@ public interface NoteRepository extends JpaRepository<Note, Long> {
      */
     Optional<Note> findByIdAndOwner(Long id, User owner);
 
+    /**
+     * Reads a note straight into its API representation; collaborators are only
+     * counted, never loaded.
+     */
+    @Query("SELECT new com.example.demo.dto.NoteDetailsDto(n.id, n.title, n.content, n.createdAt, n.lastActivity, "
+            + "n.owner.id, n.group.id, 1 + SIZE(n.collaborators), n.version) FROM Note n WHERE n.id = :id")
+    Optional<NoteDetailsDto> findDetailsById(@Param("id") Long id);
+
+    /**
+     * Counts a note's collaborators in the database, without loading them.
+     */
+    @Query("SELECT SIZE(n.collaborators) FROM Note n WHERE n.id = :id")
+    int countCollaborators(@Param("id") Long id);
+
+    /**
+     * Reads a note's current version in a transaction of its own, so it can be
+     * called after the caller's transaction has failed, e.g. on an optimistic
+     * locking conflict. Empty if the note is gone.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    @Query("SELECT n.version FROM Note n WHERE n.id = :id")
+    Optional<Long> findCurrentVersionById(@Param("id") Long id);
+
     /**
      * Finds all tasks owned by a specific user, identified by their ID.
      * The return type is List<PersonalTask>. If the user has no tasks,
@@ -68,6 +105,117 @@ public interface NoteRepository extends JpaRepository<Note, Long> {
      */
     List<Note> findByOwner_IdOrderByLastActivityDesc(Long userId);
 
+    /**
+     * Lists all notes of a user, most recent first, without loading their content.
+     *
+     * @param ownerId The ID of the user to find notes for.
+     * @return Id, title and lastActivity of every note owned by the user.
+     */
+    @Query("select n.id as id, n.title as title, n.lastActivity as lastActivity from Note n "
+            + "where n.owner.id = :ownerId order by n.lastActivity desc, n.id asc")
+    List<NoteListItemView> findListItemsByOwnerId(@Param("ownerId") Long ownerId);
+
+    /**
+     * Returns the first page of a user's notes, most recent first, without
+     * loading their content. Backed by idx_notes_owner_last_activity.
+     *
+     * @param ownerId  The ID of the user to find notes for.
+     * @param pageable Only the page size is used; the query is always sorted.
+     * @return At most pageable.getPageSize() list items.
+     */
+    @Query("select n.id as id, n.title as title, n.lastActivity as lastActivity from Note n "
+            + "where n.owner.id = :ownerId order by n.lastActivity desc, n.id asc")
+    List<NoteListItemView> findListItemsPageByOwnerId(@Param("ownerId") Long ownerId, Pageable pageable);
+
+    /**
+     * Returns the page of a user's notes that follows the (lastActivity, id)
+     * keyset position of the previous page.
+     *
+     * @param ownerId      The ID of the user to find notes for.
+     * @param lastActivity The lastActivity of the last row of the previous page.
+     * @param id           The id of the last row of the previous page.
+     * @param pageable     Only the page size is used; the query is always sorted.
+     * @return At most pageable.getPageSize() list items.
+     */
+    @Query("select n.id as id, n.title as title, n.lastActivity as lastActivity from Note n "
+            + "where n.owner.id = :ownerId "
+            + "and (n.lastActivity < :lastActivity or (n.lastActivity = :lastActivity and n.id > :id)) "
+            + "order by n.lastActivity desc, n.id asc")
+    List<NoteListItemView> findListItemsPageByOwnerIdAfter(@Param("ownerId") Long ownerId,
+            @Param("lastActivity") LocalDateTime lastActivity,
+            @Param("id") Long id,
+            Pageable pageable);
+
+    /**
+     * Selects the notes shown on the recent-notes dashboard in a single query:
+     * the 3 most recent notes of the previous 7 days (bucket 0), the 3 most recent
+     * of the 30 days before that (bucket 1) and the 5 most recent older ones
+     * (bucket 2). Content is never read.
+     *
+     * @param ownerId       The ID of the user to find notes for.
+     * @param sevenDaysAgo  Lower bound of bucket 0.
+     * @param thirtyDaysAgo Lower bound of bucket 1.
+     * @return At most 11 rows, ordered by bucket and then most recent first.
+     */
+    @Query(value = "SELECT ranked.id AS \"id\", ranked.title AS \"title\", "
+            + "ranked.last_activity AS \"lastActivity\", ranked.bucket AS \"bucket\" "
+            + "FROM (SELECT n.id, n.title, n.last_activity, b.bucket, "
+            + "             ROW_NUMBER() OVER (PARTITION BY b.bucket ORDER BY n.last_activity DESC, n.id) AS rn "
+            + "      FROM notes n "
+            + "      CROSS JOIN LATERAL (SELECT CASE WHEN n.last_activity > :sevenDaysAgo THEN 0 "
+            + "                                      WHEN n.last_activity > :thirtyDaysAgo THEN 1 "
+            + "                                      ELSE 2 END AS bucket) b "
+            + "      WHERE n.user_id = :ownerId AND n.deleted_at IS NULL) ranked "
+            + "WHERE ranked.rn <= CASE ranked.bucket WHEN 2 THEN 5 ELSE 3 END "
+            + "ORDER BY ranked.bucket, ranked.last_activity DESC, ranked.id", nativeQuery = true)
+    List<RecentNoteView> findRecentByOwnerId(@Param("ownerId") Long ownerId,
+            @Param("sevenDaysAgo") LocalDateTime sevenDaysAgo,
+            @Param("thirtyDaysAgo") LocalDateTime thirtyDaysAgo);
+
+    /**
+     * Loads the searchable fields of all of a user's notes, used to build the
+     * in-memory search index.
+     *
+     * @param ownerId The ID of the user to find notes for.
+     * @return Id, title, content and lastActivity of every note owned by the user.
+     */
+    @Query("select n.id as id, n.title as title, n.content as content, n.lastActivity as lastActivity "
+            + "from Note n where n.owner.id = :ownerId")
+    List<NoteIndexSourceView> findIndexSourcesByOwnerId(@Param("ownerId") Long ownerId);
+
+    /**
+     * Ranked full-text search over a user's notes.
+     * Matches against the generated search_vector column (GIN-indexed, see
+     * DatabaseSchemaInitializer). Only the rows of the requested page are passed
+     * to ts_headline, so snippet generation cost does not grow with the number of
+     * matches. The content is HTML-escaped before it is highlighted, so the mark
+     * selectors are the only markup in the snippet.
+     *
+     * @param ownerId The ID of the user whose notes are searched.
+     * @param tsQuery A to_tsquery expression, e.g. "linear:* & algebra:*".
+     * @param limit   The page size.
+     * @param offset  The number of hits to skip.
+     * @return The hits of the requested page, best match first.
+     */
+    @Query(value = "SELECT ranked.id AS \"id\", ranked.title AS \"title\", "
+            + "ranked.last_activity AS \"lastActivity\", ranked.rank AS \"rank\", "
+            + "ts_headline('english', replace(replace(replace(replace(replace(coalesce(n.content, ''), "
+            + "'&', '&amp;'), '<', '&lt;'), '>', '&gt;'), '\"', '&quot;'), chr(39), '&#39;'), "
+            + "to_tsquery('english', :tsQuery), "
+            + "'StartSel=<mark>, StopSel=</mark>, MaxWords=25, MinWords=10, MaxFragments=2, FragmentDelimiter=\" ... \"') "
+            + "AS \"snippet\" "
+            + "FROM (SELECT n.id, n.title, n.last_activity, ts_rank_cd(n.search_vector, q.query) AS rank "
+            + "      FROM notes n CROSS JOIN to_tsquery('english', :tsQuery) AS q(query) "
+            + "      WHERE n.user_id = :ownerId AND n.deleted_at IS NULL AND n.search_vector @@ q.query "
+            + "      ORDER BY rank DESC, n.last_activity DESC, n.id "
+            + "      LIMIT :limit OFFSET :offset) ranked "
+            + "JOIN notes n ON n.id = ranked.id "
+            + "ORDER BY ranked.rank DESC, ranked.last_activity DESC, ranked.id", nativeQuery = true)
+    List<NoteSearchView> searchByOwnerId(@Param("ownerId") Long ownerId,
+            @Param("tsQuery") String tsQuery,
+            @Param("limit") int limit,
+            @Param("offset") int offset);
+
     /**
      * Finds all notes associated with a specific group.
      *
@@ -75,4 +223,155 @@ public interface NoteRepository extends JpaRepository<Note, Long> {
      * @return A list of notes associated with the given group.
      */
     List<Note> findByGroup_Id(Long groupId);
+
+    /**
+     * Sets a note's last activity without loading it (and its content).
+     *
+     * @param noteId       The ID of the note.
+     * @param lastActivity The new last activity timestamp.
+     * @return The number of updated rows.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Note n SET n.lastActivity = :lastActivity WHERE n.id = :noteId")
+    int touchLastActivity(@Param("noteId") Long noteId, @Param("lastActivity") LocalDateTime lastActivity);
+
+    /**
+     * Stores the rolling chat summary without going through the entity, so it
+     * neither bumps last activity nor conflicts with concurrent note edits.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Note n SET n.chatSummary = :summary, n.chatSummarizedUntil = :summarizedUntil WHERE n.id = :noteId")
+    int updateChatSummary(@Param("noteId") Long noteId, @Param("summary") String summary,
+            @Param("summarizedUntil") Long summarizedUntil);
+
+    /*
+     * Soft-delete trash (app.trash.mode=soft). Trashed notes are hidden from the
+     * entity by its @SQLRestriction, so these are native queries. Moving and
+     * restoring only flip deleted_at; content, group, collaborators and chat
+     * history stay where they are.
+     */
+
+    /**
+     * Moves the user's notes to the trash and decrements the note counters of
+     * their groups, in one statement.
+     *
+     * @return The IDs of the trashed notes; IDs of other users' notes are skipped
+     */
+    @Transactional
+    @Query(value = "WITH trashed AS ("
+            + "    UPDATE notes SET deleted_at = :deletedAt "
+            + "    WHERE user_id = :ownerId AND id = ANY(:noteIds) AND deleted_at IS NULL "
+            + "    RETURNING id, group_id), "
+            + "note_counts AS ("
+            + "    UPDATE groups g SET note_count = g.note_count - per_group.notes "
+            + "    FROM (SELECT group_id, count(*) AS notes FROM trashed WHERE group_id IS NOT NULL GROUP BY group_id) per_group "
+            + "    WHERE g.id = per_group.group_id) "
+            + "SELECT trashed.id FROM trashed", nativeQuery = true)
+    List<Long> softDelete(@Param("ownerId") Long ownerId, @Param("noteIds") Long[] noteIds,
+            @Param("deletedAt") LocalDateTime deletedAt);
+
+    /**
+     * Takes the user's notes out of the trash and increments the note counters
+     * of their groups, in one statement.
+     *
+     * @return The restored notes; IDs of other users' notes are skipped
+     */
+    @Transactional
+    @Query(value = "WITH restored AS ("
+            + "    UPDATE notes SET deleted_at = NULL, last_activity = :restoredAt "
+            + "    WHERE user_id = :ownerId AND id = ANY(:noteIds) AND deleted_at IS NOT NULL "
+            + "    RETURNING id, title, content, last_activity, group_id), "
+            + "note_counts AS ("
+            + "    UPDATE groups g SET note_count = g.note_count + per_group.notes "
+            + "    FROM (SELECT group_id, count(*) AS notes FROM restored WHERE group_id IS NOT NULL GROUP BY group_id) per_group "
+            + "    WHERE g.id = per_group.group_id) "
+            + "SELECT restored.id AS \"id\", restored.title AS \"title\", restored.content AS \"content\", "
+            + "restored.last_activity AS \"lastActivity\" FROM restored", nativeQuery = true)
+    List<NoteIndexSourceView> restoreSoftDeleted(@Param("ownerId") Long ownerId, @Param("noteIds") Long[] noteIds,
+            @Param("restoredAt") LocalDateTime restoredAt);
+
+    /**
+     * Lists the user's trash, most recently deleted first. Backed by the partial
+     * index idx_notes_trash.
+     */
+    @Query(value = "SELECT n.id AS \"id\", n.title AS \"title\", n.content AS \"content\", "
+            + "n.created_at AS \"createdAt\", n.deleted_at AS \"deletedAt\", "
+            + "(SELECT count(*) FROM note_collaborators c WHERE c.note_id = n.id) AS \"collaboratorCount\" "
+            + "FROM notes n WHERE n.user_id = :ownerId AND n.deleted_at IS NOT NULL "
+            + "ORDER BY n.deleted_at DESC, n.id DESC", nativeQuery = true)
+    List<TrashedNoteView> findTrashedByOwnerId(@Param("ownerId") Long ownerId);
+
+    /**
+     * Returns the first page of the user's trash with the content cut down to a
+     * preview by the database; the trash ID is the note ID.
+     */
+    @Query(value = "SELECT n.id AS \"id\", n.title AS \"title\", left(n.content, :previewChars) AS \"preview\", "
+            + "n.created_at AS \"createdAt\", n.deleted_at AS \"deletedAt\", n.id AS \"originalNoteId\", "
+            + "(SELECT count(*) FROM note_collaborators c WHERE c.note_id = n.id) AS \"collaboratorCount\" "
+            + "FROM notes n WHERE n.user_id = :ownerId AND n.deleted_at IS NOT NULL "
+            + "ORDER BY n.deleted_at DESC, n.id DESC LIMIT :limit", nativeQuery = true)
+    List<TrashListItemView> findTrashedListItemsPage(@Param("ownerId") Long ownerId,
+            @Param("previewChars") int previewChars, @Param("limit") int limit);
+
+    /**
+     * Returns the page of the user's trash that follows the (deletedAt, id)
+     * keyset position of the previous page.
+     */
+    @Query(value = "SELECT n.id AS \"id\", n.title AS \"title\", left(n.content, :previewChars) AS \"preview\", "
+            + "n.created_at AS \"createdAt\", n.deleted_at AS \"deletedAt\", n.id AS \"originalNoteId\", "
+            + "(SELECT count(*) FROM note_collaborators c WHERE c.note_id = n.id) AS \"collaboratorCount\" "
+            + "FROM notes n WHERE n.user_id = :ownerId AND n.deleted_at IS NOT NULL "
+            + "AND (n.deleted_at, n.id) < (:deletedAt, :id) "
+            + "ORDER BY n.deleted_at DESC, n.id DESC LIMIT :limit", nativeQuery = true)
+    List<TrashListItemView> findTrashedListItemsPageAfter(@Param("ownerId") Long ownerId,
+            @Param("deletedAt") LocalDateTime deletedAt, @Param("id") Long id,
+            @Param("previewChars") int previewChars, @Param("limit") int limit);
+
+    /**
+     * Hard-deletes the user's trashed notes with their chat messages and
+     * collaborator links. The rows are locked first, so a concurrent restore
+     * either wins or waits.
+     *
+     * @return The number of deleted notes; IDs of other users' notes are skipped
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "WITH purged AS ("
+            + "    SELECT id FROM notes WHERE user_id = :ownerId AND id = ANY(:noteIds) AND deleted_at IS NOT NULL "
+            + "    FOR UPDATE), "
+            + "chat AS (DELETE FROM ai_chat_message m USING purged WHERE m.note_id = purged.id), "
+            + "collaborators AS (DELETE FROM note_collaborators c USING purged WHERE c.note_id = purged.id) "
+            + "DELETE FROM notes n USING purged WHERE n.id = purged.id", nativeQuery = true)
+    int purgeSoftDeleted(@Param("ownerId") Long ownerId, @Param("noteIds") Long[] noteIds);
+
+    /**
+     * Same as purgeSoftDeleted, for the user's whole trash.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "WITH purged AS ("
+            + "    SELECT id FROM notes WHERE user_id = :ownerId AND deleted_at IS NOT NULL FOR UPDATE), "
+            + "chat AS (DELETE FROM ai_chat_message m USING purged WHERE m.note_id = purged.id), "
+            + "collaborators AS (DELETE FROM note_collaborators c USING purged WHERE c.note_id = purged.id) "
+            + "DELETE FROM notes n USING purged WHERE n.id = purged.id", nativeQuery = true)
+    int purgeSoftDeletedByOwnerId(@Param("ownerId") Long ownerId);
+
+    /**
+     * Hard-deletes at most chunkSize notes that were trashed before the cutoff,
+     * oldest first. Rows locked by a concurrent restore or purge are skipped, so
+     * a chunk never waits on other transactions.
+     *
+     * @return The number of deleted notes; less than chunkSize when done
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "WITH purged AS ("
+            + "    SELECT id FROM notes WHERE deleted_at < :cutoff ORDER BY deleted_at LIMIT :chunkSize "
+            + "    FOR UPDATE SKIP LOCKED), "
+            + "chat AS (DELETE FROM ai_chat_message m USING purged WHERE m.note_id = purged.id), "
+            + "collaborators AS (DELETE FROM note_collaborators c USING purged WHERE c.note_id = purged.id) "
+            + "DELETE FROM notes n USING purged WHERE n.id = purged.id", nativeQuery = true)
+    int purgeExpiredSoftDeleted(@Param("cutoff") LocalDateTime cutoff, @Param("chunkSize") int chunkSize);
 }
\ No newline at end of file
@@ -1,7 +1,10 @@
 package com.example.demo.repository;
 
+import com.example.demo.dto.PersonalTaskDto;
 import com.example.demo.model.PersonalTask;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -19,4 +22,11 @@ public interface PersonalTaskRepository extends JpaRepository<PersonalTask, Long
      */
     List<PersonalTask> findByOwner_Id(Long userId);
 
+    /**
+     * Same as findByOwner_Id, read straight into the API representation.
+     */
+    @Query("SELECT new com.example.demo.dto.PersonalTaskDto(t.id, t.text, t.completed) "
+            + "FROM PersonalTask t WHERE t.owner.id = :userId ORDER BY t.id")
+    List<PersonalTaskDto> findDtosByOwnerId(@Param("userId") Long userId);
+
 }
\ No newline at end of file
@@ -2,9 +2,16 @@ package com.example.demo.repository;
 
 import com.example.demo.model.Trash;
 import com.example.demo.model.User;
+import com.example.demo.repository.projection.NoteIndexSourceView;
+import com.example.demo.repository.projection.TrashListItemView;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -27,4 +34,116 @@ public interface TrashRepository extends JpaRepository<Trash, Long> {
      * @return The trashed item if found
      */
     Trash findByIdAndOwner(Long id, User owner);
+
+    /**
+     * Returns the first page of a user's trash, most recently deleted first,
+     * with the content cut down to a preview by the database. Backed by
+     * idx_trash_owner_deleted_at.
+     *
+     * @param ownerId      The ID of the user
+     * @param previewChars The maximum length of the preview
+     * @param limit        The maximum number of rows
+     */
+    @Query(value = "SELECT t.id AS \"id\", t.title AS \"title\", left(t.content, :previewChars) AS \"preview\", "
+            + "t.created_at AS \"createdAt\", t.deleted_at AS \"deletedAt\", "
+            + "t.original_note_id AS \"originalNoteId\", t.collaborator_count AS \"collaboratorCount\" "
+            + "FROM trash t WHERE t.user_id = :ownerId "
+            + "ORDER BY t.deleted_at DESC, t.id DESC LIMIT :limit", nativeQuery = true)
+    List<TrashListItemView> findListItemsPage(@Param("ownerId") Long ownerId,
+            @Param("previewChars") int previewChars, @Param("limit") int limit);
+
+    /**
+     * Returns the page of a user's trash that follows the (deletedAt, id)
+     * keyset position of the previous page.
+     */
+    @Query(value = "SELECT t.id AS \"id\", t.title AS \"title\", left(t.content, :previewChars) AS \"preview\", "
+            + "t.created_at AS \"createdAt\", t.deleted_at AS \"deletedAt\", "
+            + "t.original_note_id AS \"originalNoteId\", t.collaborator_count AS \"collaboratorCount\" "
+            + "FROM trash t WHERE t.user_id = :ownerId AND (t.deleted_at, t.id) < (:deletedAt, :id) "
+            + "ORDER BY t.deleted_at DESC, t.id DESC LIMIT :limit", nativeQuery = true)
+    List<TrashListItemView> findListItemsPageAfter(@Param("ownerId") Long ownerId,
+            @Param("deletedAt") LocalDateTime deletedAt, @Param("id") Long id,
+            @Param("previewChars") int previewChars, @Param("limit") int limit);
+
+    /*
+     * Bulk operations. Each is a single set-based statement whatever the number
+     * of IDs; the IDs are bound as one array parameter, so the statement text
+     * (and its cached plan) does not change with the batch size.
+     */
+
+    /**
+     * Moves the user's notes to the trash: deletes them with their chat messages
+     * and collaborator links, decrements the note counters of their groups and
+     * inserts the trash rows, all in one statement.
+     *
+     * @return The IDs of the notes that were moved; IDs of other users' notes are skipped
+     */
+    @Transactional
+    @Query(value = "WITH moved AS ("
+            + "    DELETE FROM notes n WHERE n.user_id = :ownerId AND n.id = ANY(:noteIds) AND n.deleted_at IS NULL "
+            + "    RETURNING n.id, n.title, n.content, n.created_at, n.user_id, n.group_id), "
+            + "chat AS (DELETE FROM ai_chat_message m USING moved WHERE m.note_id = moved.id), "
+            + "collaborators AS (DELETE FROM note_collaborators c USING moved WHERE c.note_id = moved.id), "
+            + "note_counts AS ("
+            + "    UPDATE groups g SET note_count = g.note_count - moved_per_group.notes "
+            + "    FROM (SELECT group_id, count(*) AS notes FROM moved WHERE group_id IS NOT NULL GROUP BY group_id) moved_per_group "
+            + "    WHERE g.id = moved_per_group.group_id), "
+            + "trashed AS ("
+            + "    INSERT INTO trash (title, content, created_at, deleted_at, original_note_id, user_id, collaborators_info, collaborator_count) "
+            + "    SELECT moved.title, moved.content, moved.created_at, :deletedAt, moved.id, moved.user_id, "
+            + "        linked.ids, linked.n "
+            + "    FROM moved LEFT JOIN LATERAL ("
+            + "        SELECT string_agg(c.user_id::text, ',' ORDER BY c.user_id) AS ids, count(*) AS n "
+            + "        FROM note_collaborators c WHERE c.note_id = moved.id) linked ON true) "
+            + "SELECT moved.id FROM moved", nativeQuery = true)
+    List<Long> moveNotesToTrash(@Param("ownerId") Long ownerId, @Param("noteIds") Long[] noteIds,
+            @Param("deletedAt") LocalDateTime deletedAt);
+
+    /**
+     * Restores the user's trashed items as new notes and deletes them from the
+     * trash in one statement.
+     *
+     * @return The restored notes; IDs of other users' items are skipped
+     */
+    @Transactional
+    @Query(value = "WITH restored AS ("
+            + "    DELETE FROM trash t WHERE t.user_id = :ownerId AND t.id = ANY(:trashIds) "
+            + "    RETURNING t.title, t.content, t.created_at, t.user_id) "
+            + "INSERT INTO notes (title, content, created_at, last_activity, user_id) "
+            + "SELECT restored.title, restored.content, restored.created_at, :restoredAt, restored.user_id FROM restored "
+            + "RETURNING id AS \"id\", title AS \"title\", content AS \"content\", last_activity AS \"lastActivity\"",
+            nativeQuery = true)
+    List<NoteIndexSourceView> restoreToNotes(@Param("ownerId") Long ownerId, @Param("trashIds") Long[] trashIds,
+            @Param("restoredAt") LocalDateTime restoredAt);
+
+    /**
+     * @return The number of deleted items; IDs of other users' items are skipped
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM trash WHERE user_id = :ownerId AND id = ANY(:trashIds)", nativeQuery = true)
+    int deleteByOwnerIdAndIds(@Param("ownerId") Long ownerId, @Param("trashIds") Long[] trashIds);
+
+    /**
+     * Deletes the user's whole trash in one statement, without loading it.
+     *
+     * @return The number of deleted items
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Trash t WHERE t.owner.id = :ownerId")
+    int deleteByOwnerId(@Param("ownerId") Long ownerId);
+
+    /**
+     * Deletes at most chunkSize items that were trashed before the cutoff,
+     * oldest first, skipping rows locked by other transactions.
+     *
+     * @return The number of deleted items; less than chunkSize when done
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM trash WHERE id IN ("
+            + "    SELECT id FROM trash WHERE deleted_at < :cutoff ORDER BY deleted_at LIMIT :chunkSize "
+            + "    FOR UPDATE SKIP LOCKED)", nativeQuery = true)
+    int purgeExpired(@Param("cutoff") LocalDateTime cutoff, @Param("chunkSize") int chunkSize);
 }
\ No newline at end of file
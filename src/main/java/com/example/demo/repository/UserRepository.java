@@ -1,7 +1,11 @@
 package com.example.demo.repository;
 
+import com.example.demo.dto.CurrentUserDto;
 import com.example.demo.model.User;
+import com.example.demo.service.auth.AuthenticatedUser;
 import org.springframework.data.jpa.repository.JpaRepository; // <-- Change to JpaRepository
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -13,6 +17,16 @@ public interface UserRepository extends JpaRepository<User, Long> {
     // This is the new method we need for authentication
     Optional<User> findByUsername(String username);
 
+    // Loads only what an authenticated request needs, never the password hash
+    @Query("select new com.example.demo.service.auth.AuthenticatedUser(u.id, u.username, u.enabled) "
+            + "from User u where u.username = :username")
+    Optional<AuthenticatedUser> findAuthenticatedUserByUsername(@Param("username") String username);
+
+    // The user's own profile, without the password hash or verification code
+    @Query("select new com.example.demo.dto.CurrentUserDto(u.id, u.username, u.email, u.picture, u.enabled) "
+            + "from User u where u.username = :username")
+    Optional<CurrentUserDto> findCurrentUserByUsername(@Param("username") String username);
+
     // This is still useful for registration to check if an email is already taken
     Optional<User> findByEmail(String email);
 
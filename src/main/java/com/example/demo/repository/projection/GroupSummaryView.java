@@ -0,0 +1,23 @@
+package com.example.demo.repository.projection;
+
+/**
+ * A group with its owner and its denormalized counters, used by the group
+ * summary listing.
+ */
+public interface GroupSummaryView {
+    Long getId();
+
+    String getName();
+
+    Long getOwnerId();
+
+    String getOwnerUsername();
+
+    int getMemberCount();
+
+    int getTaskCount();
+
+    int getOpenTaskCount();
+
+    int getNoteCount();
+}
@@ -0,0 +1,16 @@
+package com.example.demo.repository.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * The fields of a Note that the in-memory search index is built from.
+ */
+public interface NoteIndexSourceView {
+    Long getId();
+
+    String getTitle();
+
+    String getContent();
+
+    LocalDateTime getLastActivity();
+}
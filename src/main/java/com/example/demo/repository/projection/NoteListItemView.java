@@ -0,0 +1,16 @@
+package com.example.demo.repository.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * Closed projection over a Note used by list views.
+ * Only id, title and lastActivity are selected, so the TEXT content column is
+ * never read from the database.
+ */
+public interface NoteListItemView {
+    Long getId();
+
+    String getTitle();
+
+    LocalDateTime getLastActivity();
+}
@@ -0,0 +1,19 @@
+package com.example.demo.repository.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * A ranked full-text search hit. The snippet is a highlighted excerpt of the
+ * note content produced by ts_headline, as escaped HTML (see NoteSearchHit).
+ */
+public interface NoteSearchView {
+    Long getId();
+
+    String getTitle();
+
+    LocalDateTime getLastActivity();
+
+    Double getRank();
+
+    String getSnippet();
+}
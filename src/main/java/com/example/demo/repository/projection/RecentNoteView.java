@@ -0,0 +1,17 @@
+package com.example.demo.repository.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * A note selected for the recent-notes dashboard, tagged with its time bucket:
+ * 0 = previous 7 days, 1 = previous 30 days, 2 = older.
+ */
+public interface RecentNoteView {
+    Long getId();
+
+    String getTitle();
+
+    LocalDateTime getLastActivity();
+
+    int getBucket();
+}
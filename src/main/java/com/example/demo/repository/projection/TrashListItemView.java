@@ -0,0 +1,24 @@
+package com.example.demo.repository.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * A trashed item as shown in the paged trash listing. Only a preview of the
+ * content is selected, truncated by the database, so note bodies are never
+ * transferred for the listing.
+ */
+public interface TrashListItemView {
+    Long getId();
+
+    String getTitle();
+
+    String getPreview();
+
+    LocalDateTime getCreatedAt();
+
+    LocalDateTime getDeletedAt();
+
+    Long getOriginalNoteId();
+
+    int getCollaboratorCount();
+}
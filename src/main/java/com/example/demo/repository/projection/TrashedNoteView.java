@@ -0,0 +1,20 @@
+package com.example.demo.repository.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * A soft-deleted note as listed in the trash (app.trash.mode=soft).
+ */
+public interface TrashedNoteView {
+    Long getId();
+
+    String getTitle();
+
+    String getContent();
+
+    LocalDateTime getCreatedAt();
+
+    LocalDateTime getDeletedAt();
+
+    int getCollaboratorCount();
+}
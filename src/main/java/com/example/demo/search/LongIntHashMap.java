@@ -0,0 +1,133 @@
+package com.example.demo.search;
+
+/**
+ * Open-addressing hash map from long keys to int values, used by the trigram
+ * index to avoid boxing a Long and an Integer per entry.
+ * Keys must be non-zero: 0 marks an empty slot. Not thread-safe.
+ */
+final class LongIntHashMap {
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    LongIntHashMap() {
+        this(16);
+    }
+
+    LongIntHashMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    int size() {
+        return size;
+    }
+
+    int get(long key, int missingValue) {
+        int index = indexOf(key);
+        while (true) {
+            long current = keys[index];
+            if (current == 0) {
+                return missingValue;
+            }
+            if (current == key) {
+                return values[index];
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    void put(long key, int value) {
+        if (key == 0) {
+            throw new IllegalArgumentException("0 is not a valid key");
+        }
+        int index = indexOf(key);
+        while (true) {
+            long current = keys[index];
+            if (current == 0) {
+                keys[index] = key;
+                values[index] = value;
+                if (++size * 2 > keys.length) {
+                    rehash(keys.length * 2);
+                }
+                return;
+            }
+            if (current == key) {
+                values[index] = value;
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    void remove(long key) {
+        int gap = indexOf(key);
+        while (true) {
+            long current = keys[gap];
+            if (current == 0) {
+                return;
+            }
+            if (current == key) {
+                break;
+            }
+            gap = (gap + 1) & mask;
+        }
+        size--;
+
+        // Backward-shift deletion: move later entries of the probe chain into the
+        // gap unless their home slot lies cyclically within (gap, index]
+        int index = gap;
+        while (true) {
+            index = (index + 1) & mask;
+            long current = keys[index];
+            if (current == 0) {
+                break;
+            }
+            int home = indexOf(current);
+            boolean stays = gap <= index ? (gap < home && home <= index) : (gap < home || home <= index);
+            if (!stays) {
+                keys[gap] = current;
+                values[gap] = values[index];
+                gap = index;
+            }
+        }
+        keys[gap] = 0;
+        values[gap] = 0;
+    }
+
+    long estimatedBytes() {
+        return (long) keys.length * (Long.BYTES + Integer.BYTES);
+    }
+
+    private int indexOf(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = 8;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.demo.search;
+
+import com.example.demo.model.Note;
+import com.example.demo.repository.projection.NoteIndexSourceView;
+
+import java.util.List;
+
+/**
+ * Full-text search over a user's notes.
+ * The engine is selected with the app.search.engine property:
+ * "postgres" (default) uses PostgreSQL full-text search, "memory" uses an
+ * in-process trigram index for deployments that cannot rely on database-side
+ * search.
+ */
+public interface NoteSearchEngine {
+
+    /**
+     * Searches the notes owned by a user.
+     *
+     * @param ownerId The ID of the user whose notes are searched
+     * @param query   The raw user query
+     * @param limit   The maximum number of hits to return
+     * @param offset  The number of hits to skip
+     * @return The hits of the requested page, best match first
+     */
+    List<NoteSearchHit> search(Long ownerId, String query, int limit, int offset);
+
+    /**
+     * Called whenever a note was created, updated or restored.
+     * Engines that maintain their own index apply the change once the
+     * surrounding transaction has committed.
+     *
+     * @param note The saved note
+     */
+    default void noteSaved(Note note) {
+    }
+
+    /**
+     * Called when notes were created by a bulk statement, without entities.
+     *
+     * @param ownerId The ID of the user who owns the notes
+     * @param notes   The saved notes
+     */
+    default void notesSaved(Long ownerId, List<NoteIndexSourceView> notes) {
+    }
+
+    /**
+     * Called whenever a note was deleted or moved to trash.
+     *
+     * @param ownerId The ID of the user who owned the note
+     * @param noteId  The ID of the removed note
+     */
+    default void noteRemoved(Long ownerId, Long noteId) {
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.demo.search;
+
+import java.time.LocalDateTime;
+
+/**
+ * A single search result, independent of the engine that produced it.
+ *
+ * @param snippet HTML excerpt of the note content: the text is escaped (&amp;, &lt;,
+ *                &gt;, &quot; and &#39;) and matches are wrapped in mark tags
+ * @param rank    Engine-specific relevance score, higher is better
+ */
+public record NoteSearchHit(Long id, String title, LocalDateTime lastActivity, String snippet, double rank) {
+}
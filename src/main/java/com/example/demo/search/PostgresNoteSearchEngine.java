@@ -0,0 +1,64 @@
+package com.example.demo.search;
+
+import com.example.demo.repository.NoteRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.stream.Collectors;
+
+/**
+ * Searches notes with PostgreSQL full-text search over the generated, GIN-indexed
+ * search_vector column. The database keeps the index up to date, so the write
+ * hooks are no-ops.
+ */
+@Component
+@ConditionalOnProperty(name = "app.search.engine", havingValue = "postgres", matchIfMissing = true)
+public class PostgresNoteSearchEngine implements NoteSearchEngine {
+
+    private static final int MAX_SEARCH_TERMS = 8;
+
+    private final NoteRepository noteRepository;
+
+    public PostgresNoteSearchEngine(NoteRepository noteRepository) {
+        this.noteRepository = noteRepository;
+    }
+
+    @Override
+    public List<NoteSearchHit> search(Long ownerId, String query, int limit, int offset) {
+        String tsQuery = toPrefixTsQuery(query);
+        // Punctuation-only queries would be a tsquery syntax error
+        if (tsQuery.isEmpty()) {
+            return List.of();
+        }
+        return noteRepository.searchByOwnerId(ownerId, tsQuery, limit, offset).stream()
+                .map(view -> new NoteSearchHit(view.getId(), view.getTitle(), view.getLastActivity(),
+                        view.getSnippet(), view.getRank() != null ? view.getRank() : 0))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Turns free user input into a safe to_tsquery expression in which every
+     * word is a prefix term and all terms are required, e.g.
+     * "linear alg" becomes "linear:* &amp; alg:*". Characters with a meaning in
+     * tsquery syntax are dropped, so user input can never produce a syntax error.
+     */
+    static String toPrefixTsQuery(String query) {
+        if (query == null) {
+            return "";
+        }
+        StringJoiner tsQuery = new StringJoiner(" & ");
+        int terms = 0;
+        for (String term : query.split("[^\\p{L}\\p{N}]+")) {
+            if (term.isEmpty()) {
+                continue;
+            }
+            tsQuery.add(term + ":*");
+            if (++terms == MAX_SEARCH_TERMS) {
+                break;
+            }
+        }
+        return tsQuery.toString();
+    }
+}
@@ -0,0 +1,408 @@
+package com.example.demo.search;
+
+import org.springframework.web.util.HtmlUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted trigram index over the notes of a single user.
+ * <p>
+ * Text is lower-cased and split into words; every word is padded like
+ * pg_trgm does ("  w", " wo", "wor", "ord", "rd ") and each trigram is packed
+ * into a long (three 16-bit chars). Title trigrams are indexed a second time with
+ * TITLE_FLAG set so that title matches can be ranked higher.
+ * <p>
+ * Notes are addressed by dense int doc ids and every posting list is a sorted
+ * int array, so a query only touches primitive arrays. A note matches when the
+ * share of query trigrams it contains reaches the configured minimum similarity,
+ * which makes the search tolerant to typos.
+ */
+final class TrigramIndex {
+
+    /** Only this many characters of a note's content are indexed and kept. */
+    static final int MAX_INDEXED_CHARS = 32_768;
+
+    private static final long TITLE_FLAG = 1L << 48;
+    private static final double TITLE_WEIGHT = 0.5;
+    private static final int SNIPPET_BEFORE = 40;
+    private static final int SNIPPET_AFTER = 120;
+    private static final long DOC_OVERHEAD_BYTES = 96;
+    private static final long POSTING_OVERHEAD_BYTES = 32;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // --- Document table, indexed by doc id ---
+    private long[] noteIds = new long[16];
+    private String[] titles = new String[16];
+    private String[] contents = new String[16];
+    private LocalDateTime[] lastActivities = new LocalDateTime[16];
+    private long[][] docTrigrams = new long[16][];
+    private int docCount;
+    private int[] freeDocs = new int[8];
+    private int freeDocCount;
+    private final LongIntHashMap docByNoteId = new LongIntHashMap();
+
+    // --- Postings, indexed by trigram slot ---
+    private final LongIntHashMap slotByTrigram = new LongIntHashMap(1024);
+    private int[][] postings = new int[256][];
+    private int[] postingSizes = new int[256];
+    private int slotCount;
+
+    private volatile long estimatedBytes;
+
+    long estimatedBytes() {
+        return estimatedBytes;
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return docByNoteId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a note, or updates it if it is already indexed. On update only the
+     * trigrams that appeared or disappeared are touched.
+     */
+    void put(long noteId, String title, String content, LocalDateTime lastActivity) {
+        String storedContent = truncate(content);
+        long[] trigrams = extractTrigrams(title, storedContent);
+
+        lock.writeLock().lock();
+        try {
+            int doc = docByNoteId.get(noteId, -1);
+            long[] previous;
+            if (doc < 0) {
+                doc = allocateDoc();
+                docByNoteId.put(noteId, doc);
+                previous = new long[0];
+                estimatedBytes += DOC_OVERHEAD_BYTES;
+            } else {
+                previous = docTrigrams[doc];
+                estimatedBytes -= textBytes(titles[doc], contents[doc]) + (long) previous.length * Long.BYTES;
+            }
+
+            applyDiff(doc, previous, trigrams);
+
+            noteIds[doc] = noteId;
+            titles[doc] = title;
+            contents[doc] = storedContent;
+            lastActivities[doc] = lastActivity;
+            docTrigrams[doc] = trigrams;
+            estimatedBytes += textBytes(title, storedContent) + (long) trigrams.length * Long.BYTES;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(long noteId) {
+        lock.writeLock().lock();
+        try {
+            int doc = docByNoteId.get(noteId, -1);
+            if (doc < 0) {
+                return;
+            }
+            long[] previous = docTrigrams[doc];
+            applyDiff(doc, previous, new long[0]);
+            estimatedBytes -= DOC_OVERHEAD_BYTES + textBytes(titles[doc], contents[doc])
+                    + (long) previous.length * Long.BYTES;
+
+            docByNoteId.remove(noteId);
+            noteIds[doc] = 0;
+            titles[doc] = null;
+            contents[doc] = null;
+            lastActivities[doc] = null;
+            docTrigrams[doc] = null;
+            if (freeDocCount == freeDocs.length) {
+                freeDocs = Arrays.copyOf(freeDocs, freeDocCount * 2);
+            }
+            freeDocs[freeDocCount++] = doc;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    List<NoteSearchHit> search(String query, int limit, int offset, double minSimilarity) {
+        long[] queryTrigrams = extractTrigrams(null, query);
+        if (queryTrigrams.length == 0 || limit <= 0) {
+            return List.of();
+        }
+        String[] queryWords = words(query);
+
+        lock.readLock().lock();
+        try {
+            int[] hits = new int[docCount];
+            int[] titleHits = new int[docCount];
+            for (long trigram : queryTrigrams) {
+                count(trigram, hits);
+                count(trigram | TITLE_FLAG, titleHits);
+            }
+
+            int minHits = Math.max(1, (int) Math.ceil(minSimilarity * queryTrigrams.length));
+            List<Match> matches = new ArrayList<>();
+            for (int doc = 0; doc < docCount; doc++) {
+                if (hits[doc] >= minHits) {
+                    double rank = (hits[doc] + TITLE_WEIGHT * titleHits[doc]) / queryTrigrams.length;
+                    matches.add(new Match(doc, rank));
+                }
+            }
+            Comparator<LocalDateTime> newestFirst = Comparator.nullsLast(Comparator.<LocalDateTime>reverseOrder());
+            matches.sort(Comparator.comparingDouble(Match::rank).reversed()
+                    .thenComparing(match -> lastActivities[match.doc()], newestFirst));
+
+            List<NoteSearchHit> page = new ArrayList<>(Math.min(limit, Math.max(matches.size() - offset, 0)));
+            for (int i = offset; i < matches.size() && page.size() < limit; i++) {
+                Match match = matches.get(i);
+                int doc = match.doc();
+                page.add(new NoteSearchHit(noteIds[doc], titles[doc], lastActivities[doc],
+                        snippet(contents[doc], queryWords), match.rank()));
+            }
+            return page;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private record Match(int doc, double rank) {
+    }
+
+    // --- Postings maintenance (callers hold the write lock) ---
+
+    /**
+     * Walks two sorted trigram arrays and adds the doc to the postings of new
+     * trigrams and removes it from the postings of vanished ones.
+     */
+    private void applyDiff(int doc, long[] previous, long[] current) {
+        int i = 0;
+        int j = 0;
+        while (i < previous.length || j < current.length) {
+            if (j == current.length || (i < previous.length && previous[i] < current[j])) {
+                removePosting(previous[i++], doc);
+            } else if (i == previous.length || current[j] < previous[i]) {
+                addPosting(current[j++], doc);
+            } else {
+                i++;
+                j++;
+            }
+        }
+    }
+
+    private void addPosting(long trigram, int doc) {
+        int slot = slotByTrigram.get(trigram, -1);
+        if (slot < 0) {
+            slot = slotCount++;
+            if (slot == postings.length) {
+                postings = Arrays.copyOf(postings, slot * 2);
+                postingSizes = Arrays.copyOf(postingSizes, slot * 2);
+            }
+            postings[slot] = new int[4];
+            slotByTrigram.put(trigram, slot);
+            estimatedBytes += POSTING_OVERHEAD_BYTES;
+        }
+        int[] list = postings[slot];
+        int size = postingSizes[slot];
+        int position = Arrays.binarySearch(list, 0, size, doc);
+        if (position >= 0) {
+            return;
+        }
+        position = -position - 1;
+        if (size == list.length) {
+            list = Arrays.copyOf(list, size + (size >> 1) + 1);
+            postings[slot] = list;
+        }
+        System.arraycopy(list, position, list, position + 1, size - position);
+        list[position] = doc;
+        postingSizes[slot] = size + 1;
+        estimatedBytes += Integer.BYTES;
+    }
+
+    private void removePosting(long trigram, int doc) {
+        int slot = slotByTrigram.get(trigram, -1);
+        if (slot < 0) {
+            return;
+        }
+        int[] list = postings[slot];
+        int size = postingSizes[slot];
+        int position = Arrays.binarySearch(list, 0, size, doc);
+        if (position < 0) {
+            return;
+        }
+        System.arraycopy(list, position + 1, list, position, size - position - 1);
+        postingSizes[slot] = size - 1;
+        estimatedBytes -= Integer.BYTES;
+    }
+
+    private void count(long trigram, int[] counters) {
+        int slot = slotByTrigram.get(trigram, -1);
+        if (slot < 0) {
+            return;
+        }
+        int[] list = postings[slot];
+        int size = postingSizes[slot];
+        for (int i = 0; i < size; i++) {
+            counters[list[i]]++;
+        }
+    }
+
+    private int allocateDoc() {
+        if (freeDocCount > 0) {
+            return freeDocs[--freeDocCount];
+        }
+        if (docCount == noteIds.length) {
+            int capacity = docCount * 2;
+            noteIds = Arrays.copyOf(noteIds, capacity);
+            titles = Arrays.copyOf(titles, capacity);
+            contents = Arrays.copyOf(contents, capacity);
+            lastActivities = Arrays.copyOf(lastActivities, capacity);
+            docTrigrams = Arrays.copyOf(docTrigrams, capacity);
+        }
+        return docCount++;
+    }
+
+    // --- Text handling ---
+
+    /**
+     * Extracts the sorted, distinct trigrams of a note. Title trigrams are
+     * emitted both plain and with TITLE_FLAG set.
+     */
+    static long[] extractTrigrams(String title, String content) {
+        TrigramBuffer buffer = new TrigramBuffer();
+        if (title != null) {
+            buffer.addText(title, 0);
+            buffer.addText(title, TITLE_FLAG);
+        }
+        if (content != null) {
+            buffer.addText(content, 0);
+        }
+        return buffer.toSortedDistinct();
+    }
+
+    private static final class TrigramBuffer {
+        private long[] values = new long[64];
+        private int size;
+
+        void addText(String text, long flag) {
+            int limit = Math.min(text.length(), MAX_INDEXED_CHARS);
+            char first = ' ';
+            char second = ' ';
+            boolean inWord = false;
+            for (int i = 0; i < limit; i++) {
+                char c = text.charAt(i);
+                if (Character.isLetterOrDigit(c)) {
+                    c = Character.toLowerCase(c);
+                    add(pack(first, second, c) | flag);
+                    first = second;
+                    second = c;
+                    inWord = true;
+                } else if (inWord) {
+                    add(pack(first, second, ' ') | flag);
+                    first = ' ';
+                    second = ' ';
+                    inWord = false;
+                }
+            }
+            if (inWord) {
+                add(pack(first, second, ' ') | flag);
+            }
+        }
+
+        long[] toSortedDistinct() {
+            Arrays.sort(values, 0, size);
+            int distinct = 0;
+            for (int i = 0; i < size; i++) {
+                if (distinct == 0 || values[distinct - 1] != values[i]) {
+                    values[distinct++] = values[i];
+                }
+            }
+            return Arrays.copyOf(values, distinct);
+        }
+
+        private void add(long trigram) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = trigram;
+        }
+
+        private static long pack(char first, char second, char third) {
+            return ((long) first << 32) | ((long) second << 16) | third;
+        }
+    }
+
+    private static String[] words(String query) {
+        return Arrays.stream(query.split("[^\\p{L}\\p{N}]+"))
+                .filter(word -> !word.isEmpty())
+                .toArray(String[]::new);
+    }
+
+    /**
+     * Builds a short excerpt around the first exact (case-insensitive) occurrence
+     * of a query word. Typo matches have no exact occurrence, in which case the
+     * beginning of the content is returned. The excerpt is HTML: the content is
+     * escaped and the only markup is the mark element around the match.
+     */
+    private static String snippet(String content, String[] queryWords) {
+        if (content == null || content.isEmpty()) {
+            return "";
+        }
+        int matchStart = -1;
+        int matchLength = 0;
+        for (String word : queryWords) {
+            int index = indexOfIgnoreCase(content, word);
+            if (index >= 0 && (matchStart < 0 || index < matchStart)) {
+                matchStart = index;
+                matchLength = word.length();
+            }
+        }
+        if (matchStart < 0) {
+            int end = Math.min(content.length(), SNIPPET_BEFORE + SNIPPET_AFTER);
+            return escape(content.substring(0, end)) + (end < content.length() ? "..." : "");
+        }
+        int start = Math.max(0, matchStart - SNIPPET_BEFORE);
+        int matchEnd = matchStart + matchLength;
+        int end = Math.min(content.length(), matchEnd + SNIPPET_AFTER);
+        return (start > 0 ? "..." : "")
+                + escape(content.substring(start, matchStart))
+                + "<mark>" + escape(content.substring(matchStart, matchEnd)) + "</mark>"
+                + escape(content.substring(matchEnd, end))
+                + (end < content.length() ? "..." : "");
+    }
+
+    /**
+     * Escapes &amp;, &lt;, &gt; and both quotes, like the Postgres engine does.
+     */
+    private static String escape(String text) {
+        return HtmlUtils.htmlEscape(text, StandardCharsets.UTF_8.name());
+    }
+
+    private static int indexOfIgnoreCase(String text, String word) {
+        int last = text.length() - word.length();
+        for (int i = 0; i <= last; i++) {
+            if (text.regionMatches(true, i, word, 0, word.length())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String truncate(String content) {
+        if (content == null || content.length() <= MAX_INDEXED_CHARS) {
+            return content;
+        }
+        return content.substring(0, MAX_INDEXED_CHARS);
+    }
+
+    private static long textBytes(String title, String content) {
+        long chars = (title != null ? title.length() : 0) + (content != null ? content.length() : 0);
+        return chars * Character.BYTES;
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.demo.search;
+
+import com.example.demo.model.Note;
+import com.example.demo.repository.NoteRepository;
+import com.example.demo.repository.projection.NoteIndexSourceView;
+import com.example.demo.service.TransactionHooks;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * In-process search engine backed by one {@link TrigramIndex} per user.
+ * <p>
+ * A user's index is built lazily on their first search and then kept up to date
+ * incrementally through the {@link NoteSearchEngine} write hooks, which are
+ * applied after the surrounding transaction commits. Indexes are kept in an LRU
+ * map; when their estimated total size exceeds app.search.memory.max-bytes the
+ * least recently used users' indexes are dropped whole and rebuilt on demand.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.search.engine", havingValue = "memory")
+public class TrigramNoteSearchEngine implements NoteSearchEngine {
+
+    private final NoteRepository noteRepository;
+    private final long maxBytes;
+    private final double minSimilarity;
+
+    /** Access-ordered, so iteration starts at the least recently used index. Guarded by itself. */
+    private final LinkedHashMap<Long, TrigramIndex> indexes = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Per-user count of writes; a build that saw the count change while it was
+     * reading is stale, however many builds for the user run at once.
+     */
+    private final Map<Long, Long> generations = new ConcurrentHashMap<>();
+
+    public TrigramNoteSearchEngine(NoteRepository noteRepository,
+            @Value("${app.search.memory.max-bytes:67108864}") long maxBytes,
+            @Value("${app.search.memory.min-similarity:0.4}") double minSimilarity) {
+        this.noteRepository = noteRepository;
+        this.maxBytes = maxBytes;
+        this.minSimilarity = minSimilarity;
+    }
+
+    @Override
+    public List<NoteSearchHit> search(Long ownerId, String query, int limit, int offset) {
+        return indexFor(ownerId).search(query, limit, offset, minSimilarity);
+    }
+
+    @Override
+    public void noteSaved(Note note) {
+        TransactionHooks.afterCommit(() -> update(note.getOwner().getId(),
+                index -> index.put(note.getId(), note.getTitle(), note.getContent(), note.getLastActivity())));
+    }
+
+    @Override
+    public void notesSaved(Long ownerId, List<NoteIndexSourceView> notes) {
+        TransactionHooks.afterCommit(() -> update(ownerId, index -> notes.forEach(
+                note -> index.put(note.getId(), note.getTitle(), note.getContent(), note.getLastActivity()))));
+    }
+
+    @Override
+    public void noteRemoved(Long ownerId, Long noteId) {
+        TransactionHooks.afterCommit(() -> update(ownerId, index -> index.remove(noteId)));
+    }
+
+    private TrigramIndex indexFor(Long ownerId) {
+        synchronized (indexes) {
+            TrigramIndex index = indexes.get(ownerId);
+            if (index != null) {
+                return index;
+            }
+        }
+
+        long generation = generations.getOrDefault(ownerId, 0L);
+        TrigramIndex index = new TrigramIndex();
+        for (NoteIndexSourceView note : noteRepository.findIndexSourcesByOwnerId(ownerId)) {
+            index.put(note.getId(), note.getTitle(), note.getContent(), note.getLastActivity());
+        }
+
+        // Checked and published under the lock; a write bumps the generation before it
+        // looks up the index, so it either makes this build stale or finds it published
+        TrigramIndex published;
+        synchronized (indexes) {
+            if (generations.getOrDefault(ownerId, 0L) != generation) {
+                // A note changed while we were reading; answer this query but rebuild next time,
+                // unless another build has published an index that saw the change
+                return indexes.getOrDefault(ownerId, index);
+            }
+            published = indexes.putIfAbsent(ownerId, index);
+        }
+        if (published != null) {
+            return published;
+        }
+        log.debug("Built search index for user {} with {} notes ({} bytes)", ownerId, index.size(),
+                index.estimatedBytes());
+        enforceMemoryCap(ownerId);
+        return index;
+    }
+
+    private void update(Long ownerId, Consumer<TrigramIndex> change) {
+        generations.merge(ownerId, 1L, Long::sum);
+        TrigramIndex index;
+        synchronized (indexes) {
+            index = indexes.get(ownerId);
+        }
+        // Users without a loaded index are indexed from the database on their next search
+        if (index != null) {
+            change.accept(index);
+            enforceMemoryCap(ownerId);
+        }
+    }
+
+    private void enforceMemoryCap(Long keepOwnerId) {
+        synchronized (indexes) {
+            long total = 0;
+            for (TrigramIndex index : indexes.values()) {
+                total += index.estimatedBytes();
+            }
+            Iterator<Map.Entry<Long, TrigramIndex>> eldestFirst = indexes.entrySet().iterator();
+            while (total > maxBytes && eldestFirst.hasNext()) {
+                Map.Entry<Long, TrigramIndex> entry = eldestFirst.next();
+                if (entry.getKey().equals(keepOwnerId)) {
+                    continue;
+                }
+                total -= entry.getValue().estimatedBytes();
+                eldestFirst.remove();
+                log.debug("Evicted search index of user {}", entry.getKey());
+            }
+        }
+    }
+}
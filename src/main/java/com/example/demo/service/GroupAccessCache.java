@@ -0,0 +1,50 @@
+package com.example.demo.service;
+
+import com.example.demo.model.GroupRole;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of (userId, groupId) to the user's role in the group, so that
+ * repeated task and note calls on a group skip the membership query. Entries
+ * are invalidated on join and leave; ownership never changes.
+ */
+@Component
+public class GroupAccessCache {
+
+    private final Cache<Key, GroupRole> cache;
+
+    public GroupAccessCache(@Value("${app.groups.access-cache.ttl:5m}") Duration ttl,
+            @Value("${app.groups.access-cache.max-size:50000}") long maxSize) {
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    /**
+     * @param loader Loads the role; a null result (unknown group) is not cached
+     * @return The role, or null if the loader returned null
+     */
+    public GroupRole get(Long userId, Long groupId, Supplier<GroupRole> loader) {
+        return cache.get(new Key(userId, groupId), key -> loader.get());
+    }
+
+    /**
+     * Drops the entry now and again after the current transaction commits, so
+     * that a concurrent read cannot re-cache the role from before the change.
+     */
+    public void invalidate(Long userId, Long groupId) {
+        Key key = new Key(userId, groupId);
+        cache.invalidate(key);
+        TransactionHooks.afterCommit(() -> cache.invalidate(key));
+    }
+
+    private record Key(Long userId, Long groupId) {
+    }
+}
@@ -1,20 +1,24 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.GroupSummaryDto;
+import com.example.demo.dto.UserDto;
 import com.example.demo.model.Group;
+import com.example.demo.model.GroupRole;
 import com.example.demo.model.GroupTask;
 import com.example.demo.model.Note;
 import com.example.demo.model.User;
 import com.example.demo.repository.GroupRepository;
 import com.example.demo.repository.GroupTaskRepository;
 import com.example.demo.repository.NoteRepository;
+import com.example.demo.repository.projection.GroupSummaryView;
 import lombok.RequiredArgsConstructor;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -24,91 +28,95 @@ public class GroupService {
     private final GroupTaskRepository groupTaskRepository;
     private final NoteRepository noteRepository;
     private final UserService userService;
+    private final GroupAccessCache groupAccessCache;
 
     @Transactional(readOnly = true)
     public List<Group> getAllGroupsForUser(String username) {
-        User user = userService.getUserByUsername(username);
-        List<Group> ownedGroups = groupRepository.findByOwner(user);
-        List<Group> memberGroups = groupRepository.findByMembersContains(user);
+        return groupRepository.findAllForUser(userService.getUserId(username));
+    }
 
-        return Stream.concat(ownedGroups.stream(), memberGroups.stream())
-                .distinct()
+    /**
+     * Lists the user's groups with member, task and note counts only, read from
+     * the counter columns in a single query.
+     *
+     * @param username The username of the user
+     * @return The group summaries, ordered by id
+     */
+    @Transactional(readOnly = true)
+    public List<GroupSummaryDto> getGroupSummariesForUser(String username) {
+        return groupRepository.findSummariesForUser(userService.getUserId(username)).stream()
+                .map(this::mapToGroupSummaryDto)
                 .collect(Collectors.toList());
     }
 
     @Transactional
     public Group createGroup(String name, String username) {
-        User user = userService.getUserByUsername(username);
+        User user = userService.getUserReference(username);
 
         Group group = new Group();
         group.setName(name);
         group.setOwner(user);
         group.addMember(user);
+        group.setMemberCount(1);
 
         return groupRepository.save(group);
     }
 
     @Transactional(readOnly = true)
     public Group getGroupById(Long groupId, String username) {
-        User user = userService.getUserByUsername(username);
-        Group group = groupRepository.findById(groupId)
-                .orElseThrow(() -> new RuntimeException("Group not found with id: " + groupId));
-
-        if (!group.getOwner().equals(user) && !group.getMembers().contains(user)) {
-            throw new RuntimeException("User does not have access to this group");
-        }
-
-        return group;
+        verifyAccess(groupId, userService.getUserId(username));
+        return findGroup(groupId);
     }
 
     @Transactional
     public Group joinGroup(Long groupId, String username) {
-        User user = userService.getUserByUsername(username);
-        Group group = groupRepository.findById(groupId)
-                .orElseThrow(() -> new RuntimeException("Group not found with id: " + groupId));
+        Long userId = userService.getUserId(username);
 
-        if (!group.getMembers().contains(user)) {
-            group.addMember(user);
-            group = groupRepository.save(group);
+        if (resolveRole(groupId, userId) == GroupRole.NONE && groupRepository.addMember(groupId, userId) == 1) {
+            groupRepository.adjustMemberCount(groupId, 1);
+            groupAccessCache.invalidate(userId, groupId);
         }
 
-        return group;
+        return findGroup(groupId);
     }
 
     @Transactional
     public void leaveGroup(Long groupId, String username) {
-        User user = userService.getUserByUsername(username);
-        Group group = getGroupEntityById(groupId, username);
+        Long userId = userService.getUserId(username);
 
-        if (group.getOwner().equals(user)) {
+        if (verifyAccess(groupId, userId) == GroupRole.OWNER) {
             throw new RuntimeException("Owner cannot leave their own group");
         }
 
-        group.removeMember(user);
-        groupRepository.save(group);
+        if (groupRepository.removeMember(groupId, userId) == 1) {
+            groupRepository.adjustMemberCount(groupId, -1);
+        }
+        groupAccessCache.invalidate(userId, groupId);
     }
 
     @Transactional(readOnly = true)
     public List<GroupTask> getGroupTasks(Long groupId, String username) {
-        getGroupEntityById(groupId, username); // Verify access
+        verifyAccess(groupId, userService.getUserId(username));
         return groupTaskRepository.findByGroup_Id(groupId);
     }
 
     @Transactional
     public GroupTask createGroupTask(Long groupId, String text, String username) {
-        Group group = getGroupEntityById(groupId, username);
+        verifyAccess(groupId, userService.getUserId(username));
 
         GroupTask task = new GroupTask();
         task.setText(text);
-        task.setGroup(group);
+        task.setGroup(groupRepository.getReferenceById(groupId));
         task.setCompleted(false);
 
-        return groupTaskRepository.save(task);
+        GroupTask savedTask = groupTaskRepository.save(task);
+        groupRepository.adjustTaskCounts(groupId, 1, 1);
+        return savedTask;
     }
 
     @Transactional
     public GroupTask updateGroupTask(Long groupId, Long taskId, String text, boolean completed, String username) {
-        getGroupEntityById(groupId, username); // Verify access
+        verifyAccess(groupId, userService.getUserId(username));
 
         GroupTask task = groupTaskRepository.findById(taskId)
                 .orElseThrow(() -> new RuntimeException("Task not found with id: " + taskId));
@@ -117,15 +125,20 @@ public class GroupService {
             throw new RuntimeException("Task does not belong to this group");
         }
 
+        int openTaskDelta = task.isCompleted() == completed ? 0 : (completed ? -1 : 1);
         task.setText(text);
         task.setCompleted(completed);
 
-        return groupTaskRepository.save(task);
+        GroupTask savedTask = groupTaskRepository.save(task);
+        if (openTaskDelta != 0) {
+            groupRepository.adjustTaskCounts(groupId, 0, openTaskDelta);
+        }
+        return savedTask;
     }
 
     @Transactional
     public void deleteGroupTask(Long groupId, Long taskId, String username) {
-        getGroupEntityById(groupId, username); // Verify access
+        verifyAccess(groupId, userService.getUserId(username));
 
         GroupTask task = groupTaskRepository.findById(taskId)
                 .orElseThrow(() -> new RuntimeException("Task not found with id: " + taskId));
@@ -135,29 +148,80 @@ public class GroupService {
         }
 
         groupTaskRepository.delete(task);
+        groupRepository.adjustTaskCounts(groupId, -1, task.isCompleted() ? 0 : -1);
     }
 
     @Transactional(readOnly = true)
     public Set<User> getGroupMembers(Long groupId, String username) {
-        Group group = getGroupEntityById(groupId, username);
-        return group.getMembers();
+        verifyAccess(groupId, userService.getUserId(username));
+        return findGroup(groupId).getMembers();
     }
 
     @Transactional(readOnly = true)
     public List<Note> getGroupNotes(Long groupId, String username) {
-        getGroupEntityById(groupId, username); // Verify access
+        verifyAccess(groupId, userService.getUserId(username));
         return noteRepository.findByGroup_Id(groupId);
     }
 
-    private Group getGroupEntityById(Long groupId, String username) {
-        User user = userService.getUserByUsername(username);
-        Group group = groupRepository.findById(groupId)
+    private GroupSummaryDto mapToGroupSummaryDto(GroupSummaryView view) {
+        UserDto owner = new UserDto();
+        owner.setId(view.getOwnerId());
+        owner.setUsername(view.getOwnerUsername());
+
+        GroupSummaryDto dto = new GroupSummaryDto();
+        dto.setId(view.getId());
+        dto.setName(view.getName());
+        dto.setSubject("");
+        dto.setOwner(owner);
+        dto.setMemberCount(view.getMemberCount());
+        dto.setTaskCount(view.getTaskCount());
+        dto.setOpenTaskCount(view.getOpenTaskCount());
+        dto.setNoteCount(view.getNoteCount());
+        return dto;
+    }
+
+    private Group findGroup(Long groupId) {
+        return groupRepository.findById(groupId)
                 .orElseThrow(() -> new RuntimeException("Group not found with id: " + groupId));
+    }
 
-        if (!group.getOwner().equals(user) && !group.getMembers().contains(user)) {
-            throw new RuntimeException("User does not have access to this group");
+    /**
+     * Checks that the user may put notes into the group, i.e. is its owner or a
+     * member.
+     *
+     * @throws AccessDeniedException if the user has no access to the group
+     * @throws RuntimeException      if the group does not exist
+     */
+    public void verifyCanAddNotes(Long groupId, Long userId) {
+        if (resolveRole(groupId, userId) == GroupRole.NONE) {
+            throw new AccessDeniedException("User does not have access to this group");
+        }
+    }
+
+    /**
+     * Resolves the user's role in the group from the access cache, falling back
+     * to an indexed lookup that never loads the members.
+     *
+     * @throws RuntimeException if the group does not exist
+     */
+    private GroupRole resolveRole(Long groupId, Long userId) {
+        GroupRole role = groupAccessCache.get(userId, groupId,
+                () -> groupRepository.findRole(groupId, userId).map(GroupRole::valueOf).orElse(null));
+        if (role == null) {
+            throw new RuntimeException("Group not found with id: " + groupId);
         }
+        return role;
+    }
 
-        return group;
+    /**
+     * @return The user's role, OWNER or MEMBER
+     * @throws RuntimeException if the group does not exist or the user has no access
+     */
+    private GroupRole verifyAccess(Long groupId, Long userId) {
+        GroupRole role = resolveRole(groupId, userId);
+        if (role == GroupRole.NONE) {
+            throw new RuntimeException("User does not have access to this group");
+        }
+        return role;
     }
 }
\ No newline at end of file
@@ -1,13 +1,30 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.NoteCreateRequestDto;
+import com.example.demo.dto.NoteDetailsDto;
 import com.example.demo.dto.NoteListItemDto;
+import com.example.demo.dto.NotePageDto;
+import com.example.demo.dto.NotePatchRequestDto;
+import com.example.demo.dto.NotePatchResultDto;
+import com.example.demo.dto.NoteSearchResultDto;
+import com.example.demo.dto.NoteUpdateRequestDto;
 import com.example.demo.dto.RecentNotesDto;
 import com.example.demo.model.Note;
 import com.example.demo.model.User;
+import com.example.demo.repository.GroupRepository;
 import com.example.demo.repository.NoteRepository;
+import com.example.demo.repository.projection.NoteListItemView;
+import com.example.demo.repository.projection.RecentNoteView;
+import com.example.demo.search.NoteSearchEngine;
+import com.example.demo.search.NoteSearchHit;
 
 //import org.checkerframework.checker.units.qual.t;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -20,64 +37,108 @@ import java.util.stream.Collectors;
 @Service
 public class NoteService {
 
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    /** Also the default of the size parameter of GET /note/search. */
+    public static final int DEFAULT_SEARCH_PAGE_SIZE = 5;
+
     @Autowired
     private NoteRepository noteRepository;
 
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private NoteSearchEngine noteSearchEngine;
+
+    @Autowired
+    private RecentNotesCache recentNotesCache;
+
+    @Autowired
+    private GroupRepository groupRepository;
+
+    @Autowired
+    private GroupService groupService;
+
+    @Autowired
+    private NoteWriteBuffer noteWriteBuffer;
+
     @Transactional(readOnly = true)
     public List<Note> getAllNotesForUser(String username) {
-        User user = userService.getUserByUsername(username);
-        return noteRepository.findByOwner_Id(user.getId());
+        Long userId = userService.getUserId(username);
+        return noteRepository.findByOwner_Id(userId);
     }
 
     @Transactional(readOnly = true)
     public List<NoteListItemDto> getNoteListItemsForUser(String username) {
-        User user = userService.getUserByUsername(username);
-        // Get notes sorted by lastActivity in descending order (most recent first)
-        List<Note> notes = noteRepository.findByOwner_IdOrderByLastActivityDesc(user.getId());
-
-        return notes.stream()
-                .map(note -> {
-                    NoteListItemDto dto = new NoteListItemDto();
-                    dto.setId(note.getId());
-                    dto.setTitle(note.getTitle());
-                    dto.setLastActivity(note.getLastActivity());
-                    dto.setFormattedDate(formatDate(note.getLastActivity()));
-                    return dto;
-                })
+        Long userId = userService.getUserId(username);
+        // Sorted by lastActivity descending and projected, so note content is never loaded
+        return noteRepository.findListItemsByOwnerId(userId).stream()
+                .map(this::mapToNoteListItemDto)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Get one page of the user's notes, most recent first, using keyset
+     * pagination on (lastActivity, id).
+     *
+     * @param cursor   The continuation token of the previous page, or null for the
+     *                 first page
+     * @param size     The requested page size, clamped to [1, MAX_PAGE_SIZE]
+     * @param username The username of the user
+     * @return The page items and the token to fetch the next page with
+     */
+    @Transactional(readOnly = true)
+    public NotePageDto getNotePageForUser(String cursor, int size, String username) {
+        Long userId = userService.getUserId(username);
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        int pageSize = size <= 0 ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+        // Fetch one extra row to find out whether another page exists
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+
+        List<NoteListItemView> rows = position == null
+                ? noteRepository.findListItemsPageByOwnerId(userId, limit)
+                : noteRepository.findListItemsPageByOwnerIdAfter(userId, position.timestamp(),
+                        position.id(), limit);
+
+        boolean hasMore = rows.size() > pageSize;
+        List<NoteListItemView> page = hasMore ? rows.subList(0, pageSize) : rows;
+
+        String nextCursor = null;
+        if (hasMore) {
+            NoteListItemView last = page.get(page.size() - 1);
+            nextCursor = new KeysetCursor(last.getLastActivity(), last.getId()).encode();
+        }
+
+        List<NoteListItemDto> items = page.stream()
+                .map(this::mapToNoteListItemDto)
                 .collect(Collectors.toList());
+        return new NotePageDto(items, nextCursor);
     }
 
     /**
-     * Search notes by title or content for a specific user
+     * Search notes by title or content for a specific user.
+     * The search itself is delegated to the configured NoteSearchEngine.
      * 
      * @param query    The search query
+     * @param page     The zero-based result page
+     * @param size     The page size, clamped to [1, MAX_PAGE_SIZE]; DEFAULT_SEARCH_PAGE_SIZE if not positive
      * @param username The username of the user
-     * @return A list of NoteListItemDto matching the search query
+     * @return A page of ranked search results with highlighted snippets
      */
     @Transactional(readOnly = true)
-    public List<NoteListItemDto> searchNotesForUser(String query, String username) {
-        User user = userService.getUserByUsername(username);
-        // Get all notes for the user
-        List<Note> notes = noteRepository.findByOwner_IdOrderByLastActivityDesc(user.getId());
-
+    public List<NoteSearchResultDto> searchNotesForUser(String query, int page, int size, String username) {
         // Handle null or empty query
         if (query == null || query.trim().isEmpty()) {
             return new ArrayList<>();
         }
-        return notes.stream()
-                .filter(note -> (note.getTitle().toLowerCase().contains(query.toLowerCase())))
-                .limit(5) // Limit to 5 results for performance
-                .map(note -> {
-                    NoteListItemDto dto = new NoteListItemDto();
-                    dto.setId(note.getId());
-                    dto.setTitle(note.getTitle());
-                    dto.setLastActivity(note.getLastActivity());
-                    dto.setFormattedDate(formatDate(note.getLastActivity()));
-                    return dto;
-                })
+
+        Long userId = userService.getUserId(username);
+        int pageSize = size <= 0 ? DEFAULT_SEARCH_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+        int offset = Math.max(page, 0) * pageSize;
+
+        return noteSearchEngine.search(userId, query, pageSize, offset).stream()
+                .map(this::mapToNoteSearchResultDto)
                 .collect(Collectors.toList());
     }
 
@@ -86,43 +147,31 @@ public class NoteService {
      * Returns only the first 3 most recent notes for each category
      * Notes from the previous 7 days are prioritized (won't appear in previous 30
      * days)
-     * If there are no notes in previous 7 days and previous 30 days, returns latest
-     * 5 notes
+     * Notes older than 30 days are listed in latestNotes, at most 5 of them
+     * The buckets are computed by a single query and cached per user for a short
+     * time; any note write invalidates the cached entry.
      */
-    @Transactional(readOnly = true)
     public RecentNotesDto getRecentNotesForUser(String username) {
-        User user = userService.getUserByUsername(username);
-        // Get notes sorted by lastActivity in descending order (most recent first)
-        List<Note> notes = noteRepository.findByOwner_IdOrderByLastActivityDesc(user.getId());
+        Long userId = userService.getUserId(username);
+        return recentNotesCache.get(userId, this::loadRecentNotes);
+    }
 
+    private RecentNotesDto loadRecentNotes(Long userId) {
         // Current date for comparison
         LocalDateTime now = LocalDateTime.now();
-        LocalDateTime sevenDaysAgo = now.minusDays(7);
-        LocalDateTime thirtyDaysAgo = now.minusDays(30);
+        List<RecentNoteView> rows = noteRepository.findRecentByOwnerId(userId, now.minusDays(7), now.minusDays(30));
 
-        // Filter notes by date ranges
-        List<NoteListItemDto> previous7DaysNotes = notes.stream()
-                .filter(note -> note.getLastActivity().isAfter(sevenDaysAgo))
-                .limit(3)
-                .map(this::mapToNoteListItemDto)
-                .collect(Collectors.toList());
-
-        // For previous 30 days, we only want notes that are older than 7 days but
-        // within 30 days
-        List<NoteListItemDto> previous30DaysNotes = notes.stream()
-                .filter(note -> note.getLastActivity().isAfter(thirtyDaysAgo) &&
-                        note.getLastActivity().isBefore(sevenDaysAgo))
-                .limit(3)
-                .map(this::mapToNoteListItemDto)
-                .collect(Collectors.toList());
-
-        // Show the latest notes in general if they are coverd by previous categories
-        // they are not included here but otherwise they are included
-        List<NoteListItemDto> latestNotes = notes.stream()
-                .filter(note -> note.getLastActivity().isBefore(thirtyDaysAgo))
-                .limit(5)
-                .map(this::mapToNoteListItemDto)
-                .collect(Collectors.toList());
+        List<NoteListItemDto> previous7DaysNotes = new ArrayList<>(3);
+        List<NoteListItemDto> previous30DaysNotes = new ArrayList<>(3);
+        List<NoteListItemDto> latestNotes = new ArrayList<>(5);
+        for (RecentNoteView row : rows) {
+            NoteListItemDto dto = mapToNoteListItemDto(row.getId(), row.getTitle(), row.getLastActivity());
+            switch (row.getBucket()) {
+                case 0 -> previous7DaysNotes.add(dto);
+                case 1 -> previous30DaysNotes.add(dto);
+                default -> latestNotes.add(dto);
+            }
+        }
 
         RecentNotesDto result = new RecentNotesDto();
         result.setPrevious7Days(previous7DaysNotes);
@@ -132,16 +181,31 @@ public class NoteService {
         return result;
     }
 
-    private NoteListItemDto mapToNoteListItemDto(Note note) {
+    NoteListItemDto mapToNoteListItemDto(NoteListItemView view) {
+        return mapToNoteListItemDto(view.getId(), view.getTitle(), view.getLastActivity());
+    }
+
+    NoteListItemDto mapToNoteListItemDto(Long id, String title, LocalDateTime lastActivity) {
         NoteListItemDto dto = new NoteListItemDto();
-        dto.setId(note.getId());
-        dto.setTitle(note.getTitle());
-        dto.setLastActivity(note.getLastActivity());
-        dto.setFormattedDate(formatDate(note.getLastActivity()));
+        dto.setId(id);
+        dto.setTitle(title);
+        dto.setLastActivity(lastActivity);
+        dto.setFormattedDate(formatDate(lastActivity));
+        return dto;
+    }
+
+    private NoteSearchResultDto mapToNoteSearchResultDto(NoteSearchHit hit) {
+        NoteSearchResultDto dto = new NoteSearchResultDto();
+        dto.setId(hit.id());
+        dto.setTitle(hit.title());
+        dto.setLastActivity(hit.lastActivity());
+        dto.setFormattedDate(formatDate(hit.lastActivity()));
+        dto.setSnippet(hit.snippet());
+        dto.setRank(hit.rank());
         return dto;
     }
 
-    private String formatDate(LocalDateTime dateTime) {
+    String formatDate(LocalDateTime dateTime) {
         if (dateTime == null) {
             return "Unknown";
         }
@@ -166,36 +230,151 @@ public class NoteService {
         }
     }
 
-    public Note createNote(Note noteRequest, String username) {
-        User owner = userService.getUserByUsername(username);
-        noteRequest.setOwner(owner);
-        return noteRepository.save(noteRequest);
+    /**
+     * Create a note, optionally inside a group; the group's note counter is
+     * incremented in the same transaction.
+     *
+     * @throws AccessDeniedException if the user is not the owner or a member of the group
+     */
+    @Transactional
+    public NoteDetailsDto createNote(NoteCreateRequestDto request, String username) {
+        User owner = userService.getUserReference(username);
+        Note note = new Note();
+        note.setTitle(request.title());
+        note.setContent(request.content());
+        note.setOwner(owner);
+        if (request.groupId() != null) {
+            groupService.verifyCanAddNotes(request.groupId(), owner.getId());
+            note.setGroup(groupRepository.getReferenceById(request.groupId()));
+        }
+        Note savedNote = noteRepository.save(note);
+        if (savedNote.getGroup() != null) {
+            groupRepository.adjustNoteCount(savedNote.getGroup().getId(), 1);
+        }
+        noteSearchEngine.noteSaved(savedNote);
+        recentNotesCache.invalidate(owner.getId());
+        return toDetailsDto(savedNote);
     }
 
+    /**
+     * Save the note's title and content. With the write-behind buffer enabled
+     * the save is only buffered, and the returned note is the buffered one.
+     */
     @Transactional
-    public Note updateNote(Long noteId, Note noteRequest, String username) {
+    public NoteDetailsDto updateNote(Long noteId, NoteUpdateRequestDto request, String username) {
+        if (noteWriteBuffer.isEnabled()) {
+            Long ownerId = userService.getUserId(username);
+            // Saves coalescing in the buffer need no database access at all
+            NoteDetailsDto stored = noteWriteBuffer.get(noteId)
+                    .filter(note -> note.ownerId().equals(ownerId))
+                    .orElseGet(() -> toDetailsDto(getNoteAndVerifyOwner(noteId, username)));
+            NoteDetailsDto buffered = noteWriteBuffer.write(stored, request.title(), request.content());
+            recentNotesCache.invalidate(ownerId);
+            return buffered;
+        }
+
         Note note = getNoteAndVerifyOwner(noteId, username);
-        note.setTitle(noteRequest.getTitle());
-        note.setContent(noteRequest.getContent());
-        return noteRepository.save(note);
+        note.setTitle(request.title());
+        note.setContent(request.content());
+        // Flushed here so the returned version is the one just written
+        Note savedNote = noteRepository.saveAndFlush(note);
+        noteSearchEngine.noteSaved(savedNote);
+        recentNotesCache.invalidate(savedNote.getOwner().getId());
+        return toDetailsDto(savedNote);
     }
 
+    /**
+     * Apply a delta update: the edits are applied to the content as it was at
+     * baseVersion. If the note has changed since, nothing is written and the
+     * client has to reapply its edits on top of the current version.
+     *
+     * @param noteId   The ID of the note
+     * @param request  The base version, the edits and optionally a new title
+     * @param username The username of the user
+     * @return The new version of the note
+     * @throws NoteVersionConflictException if baseVersion is not the current version
+     * @throws IllegalArgumentException     if an edit falls outside the content
+     */
+    @Transactional
+    public NotePatchResultDto patchNote(Long noteId, NotePatchRequestDto request, String username) {
+        // Edits apply to the latest save, which may still be buffered
+        noteWriteBuffer.flush(noteId);
+        Note note = getNoteAndVerifyOwner(noteId, username);
+        if (note.getVersion() != request.getBaseVersion()) {
+            throw new NoteVersionConflictException(noteId, note.getVersion());
+        }
+
+        if (request.getTitle() != null) {
+            note.setTitle(request.getTitle());
+        }
+        if (request.getEdits() != null && !request.getEdits().isEmpty()) {
+            note.setContent(TextEdits.apply(note.getContent(), request.getEdits()));
+        }
+
+        Note savedNote;
+        try {
+            // The UPDATE is guarded by the version, so a concurrent patch on the same base loses here
+            savedNote = noteRepository.saveAndFlush(note);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            // This transaction is rolled back, so the version is read in a new one
+            long currentVersion = noteRepository.findCurrentVersionById(noteId)
+                    .orElseThrow(() -> new RuntimeException("Note not found with id: " + noteId));
+            throw new NoteVersionConflictException(noteId, currentVersion);
+        }
+        noteSearchEngine.noteSaved(savedNote);
+        recentNotesCache.invalidate(savedNote.getOwner().getId());
+        String content = savedNote.getContent();
+        return new NotePatchResultDto(savedNote.getId(), savedNote.getVersion(), savedNote.getLastActivity(),
+                content != null ? content.length() : 0);
+    }
+
+    @Transactional
     public void deleteNote(Long noteId, String username) {
+        noteWriteBuffer.flush(noteId);
         Note noteToDelete = getNoteAndVerifyOwner(noteId, username);
         noteRepository.delete(noteToDelete);
+        if (noteToDelete.getGroup() != null) {
+            groupRepository.adjustNoteCount(noteToDelete.getGroup().getId(), -1);
+        }
+        noteSearchEngine.noteRemoved(noteToDelete.getOwner().getId(), noteId);
+        recentNotesCache.invalidate(noteToDelete.getOwner().getId());
     }
 
     @Transactional(readOnly = true)
-    public Note getNoteByIdForUser(Long noteId, String username) {
-        Note note = getNoteAndVerifyOwner(noteId, username);
+    public NoteDetailsDto getNoteByIdForUser(Long noteId, String username) {
+        Long ownerId = userService.getUserId(username);
+        // Looked up before the database, so a save flushed meanwhile is seen in one or the other
+        NoteDetailsDto buffered = noteWriteBuffer.get(noteId).orElse(null);
+        NoteDetailsDto note = noteRepository.findDetailsById(noteId)
+                .orElseThrow(() -> new RuntimeException("Note not found with id: " + noteId));
+        if (!note.ownerId().equals(ownerId)) {
+            throw new RuntimeException("User not authorized for this task");
+        }
+
+        if (buffered != null && buffered.version() >= note.version()) {
+            return new NoteDetailsDto(note.id(), buffered.title(), buffered.content(), note.createdAt(),
+                    buffered.lastActivity(), note.ownerId(), note.groupId(), note.participantCount(),
+                    buffered.version());
+        }
         return note;
     }
 
+    /**
+     * Maps a saved note without initializing its collaborators: a new note's set
+     * is counted in memory, a loaded note's with a count query.
+     */
+    private NoteDetailsDto toDetailsDto(Note note) {
+        int collaborators = Hibernate.isInitialized(note.getCollaborators())
+                ? note.getCollaborators().size()
+                : noteRepository.countCollaborators(note.getId());
+        return NoteDetailsDto.from(note, 1 + collaborators);
+    }
+
     public Note getNoteAndVerifyOwner(Long noteId, String username) {
-        User owner = userService.getUserByUsername(username);
+        Long ownerId = userService.getUserId(username);
         Note note = noteRepository.findById(noteId)
                 .orElseThrow(() -> new RuntimeException("Note not found with id: " + noteId));
-        if (!note.getOwner().getId().equals(owner.getId())) {
+        if (!note.getOwner().getId().equals(ownerId)) {
             throw new RuntimeException("User not authorized for this task");
         }
 
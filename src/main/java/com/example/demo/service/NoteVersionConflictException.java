@@ -0,0 +1,21 @@
+package com.example.demo.service;
+
+import lombok.Getter;
+
+/**
+ * A delta update was made against a version of the note that is no longer
+ * current. The client has to fetch the note again and reapply its edits on
+ * top of currentVersion.
+ */
+@Getter
+public class NoteVersionConflictException extends RuntimeException {
+
+    private final Long noteId;
+    private final long currentVersion;
+
+    public NoteVersionConflictException(Long noteId, long currentVersion) {
+        super("Note " + noteId + " has changed, its current version is " + currentVersion);
+        this.noteId = noteId;
+        this.currentVersion = currentVersion;
+    }
+}
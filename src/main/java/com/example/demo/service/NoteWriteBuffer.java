@@ -0,0 +1,293 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.NoteDetailsDto;
+import com.example.demo.repository.projection.NoteIndexSourceView;
+import com.example.demo.search.NoteSearchEngine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Write-behind buffer for whole-note saves, enabled with
+ * app.notes.write-behind.enabled=true. A save only replaces the note's entry in
+ * memory and is acknowledged with the version it will be stored with; an entry
+ * is written once it is older than the coalescing window, so a burst of
+ * autosaves becomes a single UPDATE. The flusher writes due entries in JDBC
+ * batches of batch-size, one short transaction per batch.
+ * Reads of a note see its buffered title and content. Code that works on the
+ * stored note (delta updates, chat, trash) flushes the note first, in its own
+ * transaction. The buffer is drained on shutdown; at most one window of saves
+ * is lost if the process dies.
+ * Published as the gauge "app.notes.write-behind.pending", the counters
+ * "app.notes.write-behind.saves" tagged result=buffered or coalesced,
+ * "app.notes.write-behind.flushed" (rows), "app.notes.write-behind.failures" and
+ * "app.notes.write-behind.dropped" (saves of notes deleted or trashed before
+ * they could be written).
+ */
+@Slf4j
+@Component
+public class NoteWriteBuffer {
+
+    private static final String FLUSH_SQL = "UPDATE notes SET title = ?, content = ?, last_activity = ?, "
+            + "version = GREATEST(version + 1, ?) WHERE id = ? AND deleted_at IS NULL";
+
+    /**
+     * The note as it will be written, and when its first unwritten save arrived.
+     */
+    private record Entry(NoteDetailsDto note, long bufferedAtNanos) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate flushTransaction;
+    private final NoteSearchEngine noteSearchEngine;
+    private final RecentNotesCache recentNotesCache;
+    private final boolean enabled;
+    private final Duration window;
+    private final int batchSize;
+    private final int maxPending;
+    private final ConcurrentMap<Long, Entry> pending = new ConcurrentHashMap<>();
+    // Taken from pending and being written; still served to readers until committed
+    private final ConcurrentMap<Long, NoteDetailsDto> inFlight = new ConcurrentHashMap<>();
+    // Serializes writes, so an older save of a note can never land after a newer one
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Counter buffered;
+    private final Counter coalesced;
+    private final Counter flushed;
+    private final Counter failures;
+    private final Counter dropped;
+
+    public NoteWriteBuffer(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            NoteSearchEngine noteSearchEngine, RecentNotesCache recentNotesCache, MeterRegistry meterRegistry,
+            @Value("${app.notes.write-behind.enabled:false}") boolean enabled,
+            @Value("${app.notes.write-behind.window:2s}") Duration window,
+            @Value("${app.notes.write-behind.batch-size:100}") int batchSize,
+            @Value("${app.notes.write-behind.max-pending:10000}") int maxPending) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.flushTransaction = new TransactionTemplate(transactionManager);
+        this.flushTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.noteSearchEngine = noteSearchEngine;
+        this.recentNotesCache = recentNotesCache;
+        this.enabled = enabled;
+        this.window = window;
+        this.batchSize = batchSize;
+        this.maxPending = maxPending;
+
+        Gauge.builder("app.notes.write-behind.pending", pending, Map::size).register(meterRegistry);
+        this.buffered = saves(meterRegistry, "buffered");
+        this.coalesced = saves(meterRegistry, "coalesced");
+        this.flushed = Counter.builder("app.notes.write-behind.flushed").register(meterRegistry);
+        this.failures = Counter.builder("app.notes.write-behind.failures").register(meterRegistry);
+        this.dropped = Counter.builder("app.notes.write-behind.dropped").register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return The note as last saved, or empty if every save of it has been written
+     */
+    public Optional<NoteDetailsDto> get(Long noteId) {
+        Entry entry = pending.get(noteId);
+        if (entry != null) {
+            return Optional.of(entry.note());
+        }
+        return Optional.ofNullable(inFlight.get(noteId));
+    }
+
+    /**
+     * Buffers a save of the note's title and content.
+     *
+     * @param stored The note as read from the database, or as returned by get
+     * @return The note as it will be written; its version acknowledges the save
+     */
+    public NoteDetailsDto write(NoteDetailsDto stored, String title, String content) {
+        if (pending.size() >= maxPending && !pending.containsKey(stored.id())) {
+            // Full: the caller pays for writing everything out
+            flushAll();
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Entry entry = pending.compute(stored.id(), (noteId, previous) -> {
+            NoteDetailsDto base = previous != null ? previous.note() : inFlight.getOrDefault(noteId, stored);
+            long version = Math.max(base.version(), stored.version()) + 1;
+            NoteDetailsDto note = new NoteDetailsDto(noteId, title, content, base.createdAt(), now,
+                    base.ownerId(), base.groupId(), base.participantCount(), version);
+            (previous != null ? coalesced : buffered).increment();
+            return new Entry(note, previous != null ? previous.bufferedAtNanos() : System.nanoTime());
+        });
+        return entry.note();
+    }
+
+    /**
+     * Writes the buffered saves of the note now, so the stored note is current.
+     * Cheap when nothing is buffered for it.
+     */
+    public void flush(Long noteId) {
+        flush(List.of(noteId));
+    }
+
+    public void flush(Collection<Long> noteIds) {
+        if (!enabled || noteIds.stream().noneMatch(id -> pending.containsKey(id) || inFlight.containsKey(id))) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            writeOut(take(noteIds));
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Writes the entries whose coalescing window has passed.
+     */
+    @Scheduled(fixedDelayString = "${app.notes.write-behind.flush-interval:PT0.5S}")
+    public void flushDue() {
+        if (!enabled || pending.isEmpty()) {
+            return;
+        }
+        long dueBefore = System.nanoTime() - window.toNanos();
+        List<Long> due = pending.entrySet().stream()
+                .filter(entry -> entry.getValue().bufferedAtNanos() - dueBefore <= 0)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+        flush(due);
+    }
+
+    @PreDestroy
+    public void drain() {
+        if (!enabled || pending.isEmpty()) {
+            return;
+        }
+        int count = pending.size();
+        flushAll();
+        log.info("Drained {} buffered note saves, {} could not be written", count, pending.size());
+    }
+
+    private void flushAll() {
+        flush(new ArrayList<>(pending.keySet()));
+    }
+
+    /**
+     * Moves the entries to inFlight; must hold flushLock.
+     */
+    private List<NoteDetailsDto> take(Collection<Long> noteIds) {
+        List<NoteDetailsDto> notes = new ArrayList<>(noteIds.size());
+        for (Long noteId : noteIds) {
+            pending.computeIfPresent(noteId, (id, entry) -> {
+                inFlight.put(id, entry.note());
+                notes.add(entry.note());
+                return null;
+            });
+        }
+        return notes;
+    }
+
+    /**
+     * Writes the notes in batches; must hold flushLock. A failed batch is put
+     * back into the buffer, unless the note has been saved again since.
+     */
+    private void writeOut(List<NoteDetailsDto> notes) {
+        for (int from = 0; from < notes.size(); from += batchSize) {
+            List<NoteDetailsDto> batch = notes.subList(from, Math.min(from + batchSize, notes.size()));
+            try {
+                List<NoteDetailsDto> written = flushTransaction.execute(status -> writeBatch(batch));
+                flushed.increment(written.size());
+                batch.stream().map(NoteDetailsDto::ownerId).distinct().forEach(recentNotesCache::invalidate);
+            } catch (RuntimeException e) {
+                failures.increment();
+                log.error("Could not write {} buffered note saves, keeping them for the next flush", batch.size(), e);
+                for (NoteDetailsDto note : batch) {
+                    pending.putIfAbsent(note.id(), new Entry(note, System.nanoTime()));
+                }
+            } finally {
+                batch.forEach(note -> inFlight.remove(note.id(), note));
+            }
+        }
+    }
+
+    /**
+     * @return The notes whose row was updated; the others were deleted or trashed
+     *         after they were buffered, so they are neither written nor indexed
+     */
+    private List<NoteDetailsDto> writeBatch(List<NoteDetailsDto> batch) {
+        int[][] counts = jdbcTemplate.batchUpdate(FLUSH_SQL, batch, batch.size(), (statement, note) -> {
+            statement.setString(1, note.title());
+            statement.setString(2, note.content());
+            statement.setTimestamp(3, Timestamp.valueOf(note.lastActivity()));
+            statement.setLong(4, note.version());
+            statement.setLong(5, note.id());
+        });
+        List<NoteDetailsDto> written = new ArrayList<>(batch.size());
+        int row = 0;
+        for (int[] chunk : counts) {
+            for (int count : chunk) {
+                NoteDetailsDto note = batch.get(row++);
+                // SUCCESS_NO_INFO: the driver did not report a count, assume the row exists
+                if (count > 0 || count == Statement.SUCCESS_NO_INFO) {
+                    written.add(note);
+                } else {
+                    dropped.increment();
+                    log.warn("Dropped a buffered save of note {} (version {}): it was deleted or trashed "
+                            + "before the save could be written", note.id(), note.version());
+                }
+            }
+        }
+        written.stream()
+                .collect(Collectors.groupingBy(NoteDetailsDto::ownerId))
+                .forEach((ownerId, notes) -> noteSearchEngine.notesSaved(ownerId,
+                        notes.stream().<NoteIndexSourceView>map(IndexSource::new).toList()));
+        return written;
+    }
+
+    private record IndexSource(NoteDetailsDto note) implements NoteIndexSourceView {
+        @Override
+        public Long getId() {
+            return note.id();
+        }
+
+        @Override
+        public String getTitle() {
+            return note.title();
+        }
+
+        @Override
+        public String getContent() {
+            return note.content();
+        }
+
+        @Override
+        public LocalDateTime getLastActivity() {
+            return note.lastActivity();
+        }
+    }
+
+    private static Counter saves(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("app.notes.write-behind.saves")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.PersonalTaskDto;
 import com.example.demo.model.PersonalTask;
 import com.example.demo.model.User;
 import com.example.demo.repository.PersonalTaskRepository;
@@ -17,22 +18,22 @@ public class PersonalTaskService {
     @Autowired
     private UserService userService;
 
-    public List<PersonalTask> getAllTasksForUser(String username) {
-        User owner = userService.getUserByUsername(username);
-        return personalTaskRepository.findByOwner_Id(owner.getId());
+    public List<PersonalTaskDto> getAllTasksForUser(String username) {
+        Long ownerId = userService.getUserId(username);
+        return personalTaskRepository.findDtosByOwnerId(ownerId);
     }
 
-    public PersonalTask createTask(PersonalTask taskRequest, String username) {
-        User owner = userService.getUserByUsername(username);
+    public PersonalTaskDto createTask(PersonalTask taskRequest, String username) {
+        User owner = userService.getUserReference(username);
         taskRequest.setOwner(owner);
-        return personalTaskRepository.save(taskRequest);
+        return PersonalTaskDto.from(personalTaskRepository.save(taskRequest));
     }
 
-    public PersonalTask updateTask(Long taskId, PersonalTask taskRequest, String username) {
+    public PersonalTaskDto updateTask(Long taskId, PersonalTask taskRequest, String username) {
         PersonalTask task = getTaskAndVerifyOwner(taskId, username);
         task.setText(taskRequest.getText());
         task.setCompleted(taskRequest.isCompleted());
-        return personalTaskRepository.save(task);
+        return PersonalTaskDto.from(personalTaskRepository.save(task));
     }
 
     public void deleteTask(Long taskId, String username) {
@@ -41,10 +42,10 @@ public class PersonalTaskService {
     }
 
     private PersonalTask getTaskAndVerifyOwner(Long taskId, String username) {
-        User owner = userService.getUserByUsername(username);
+        Long ownerId = userService.getUserId(username);
         PersonalTask task = personalTaskRepository.findById(taskId)
                 .orElseThrow(() -> new RuntimeException("Task not found with id: " + taskId));
-        if (!task.getOwner().getId().equals(owner.getId())) {
+        if (!task.getOwner().getId().equals(ownerId)) {
             throw new RuntimeException("User not authorized for this task");
         }
 
@@ -0,0 +1,45 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.RecentNotesDto;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Short-lived per-user cache of the recent-notes dashboard, which is fetched on
+ * every login and page load. Entries are invalidated whenever one of the user's
+ * notes is written; the TTL only bounds how stale the relative dates
+ * ("5 minutes ago") can get.
+ */
+@Component
+public class RecentNotesCache {
+
+    private final Cache<Long, RecentNotesDto> cache;
+
+    public RecentNotesCache(@Value("${app.notes.recent-cache.ttl:30s}") Duration ttl,
+            @Value("${app.notes.recent-cache.max-size:10000}") long maxSize) {
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    public RecentNotesDto get(Long userId, Function<Long, RecentNotesDto> loader) {
+        return cache.get(userId, loader);
+    }
+
+    /**
+     * Drops the user's entry now and again after the current transaction commits,
+     * so that a concurrent read cannot re-cache data from before the write.
+     *
+     * @param userId The ID of the user whose notes changed
+     */
+    public void invalidate(Long userId) {
+        cache.invalidate(userId);
+        TransactionHooks.afterCommit(() -> cache.invalidate(userId));
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.TextEditDto;
+
+import java.util.List;
+
+/**
+ * Applies the edits of a delta update to a note's content.
+ */
+final class TextEdits {
+
+    private TextEdits() {
+    }
+
+    /**
+     * @param content The current content, null is treated as empty
+     * @param edits   The edits, applied in order
+     * @return The edited content
+     * @throws IllegalArgumentException if an edit falls outside the content it applies to
+     */
+    static String apply(String content, List<TextEditDto> edits) {
+        StringBuilder text = new StringBuilder(content != null ? content : "");
+        for (TextEditDto edit : edits) {
+            int start = edit.getOffset();
+            int delete = edit.getDelete();
+            if (start < 0 || start > text.length() || delete < 0 || delete > text.length() - start) {
+                throw new IllegalArgumentException("Edit at " + start + " deleting " + delete
+                        + " characters is outside the content of length " + text.length());
+            }
+            text.replace(start, start + delete, edit.getInsert() != null ? edit.getInsert() : "");
+        }
+        return text.toString();
+    }
+}
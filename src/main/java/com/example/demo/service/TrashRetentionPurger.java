@@ -0,0 +1,115 @@
+package com.example.demo.service;
+
+import com.example.demo.repository.NoteRepository;
+import com.example.demo.repository.TrashRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+
+/**
+ * Hard-deletes trash older than app.trash.retention, in both storage modes.
+ * Every chunk of at most chunk-size rows is its own short transaction that skips
+ * locked rows, and the purge pauses between chunks, so it never holds many locks,
+ * blocks users restoring items or saturates the database.
+ * Progress is published as "app.trash.purge.deleted" (rows, tagged by store),
+ * "app.trash.purge.chunks", "app.trash.purge.pending-cutoff" (epoch seconds of
+ * the cutoff being purged, 0 when idle) and the "app.trash.purge.run" timer.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.trash.purge.enabled", havingValue = "true", matchIfMissing = true)
+public class TrashRetentionPurger {
+
+    private final NoteRepository noteRepository;
+    private final TrashRepository trashRepository;
+    private final Duration retention;
+    private final int chunkSize;
+    private final Duration pause;
+    private final Counter deletedNotes;
+    private final Counter deletedTrashItems;
+    private final Counter chunks;
+    private final Timer runs;
+    private final AtomicLong runningCutoff = new AtomicLong();
+
+    public TrashRetentionPurger(NoteRepository noteRepository, TrashRepository trashRepository,
+            MeterRegistry meterRegistry,
+            @Value("${app.trash.retention:30d}") Duration retention,
+            @Value("${app.trash.purge.chunk-size:500}") int chunkSize,
+            @Value("${app.trash.purge.pause:200ms}") Duration pause) {
+        this.noteRepository = noteRepository;
+        this.trashRepository = trashRepository;
+        this.retention = retention;
+        this.chunkSize = chunkSize;
+        this.pause = pause;
+        this.deletedNotes = deleted(meterRegistry, "notes");
+        this.deletedTrashItems = deleted(meterRegistry, "trash");
+        this.chunks = Counter.builder("app.trash.purge.chunks").register(meterRegistry);
+        this.runs = Timer.builder("app.trash.purge.run").register(meterRegistry);
+        Gauge.builder("app.trash.purge.pending-cutoff", runningCutoff, AtomicLong::get).register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${app.trash.purge.initial-delay:PT5M}",
+            fixedDelayString = "${app.trash.purge.interval:PT1H}")
+    public void purgeExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        runningCutoff.set(cutoff.atZone(ZoneId.systemDefault()).toEpochSecond());
+        try {
+            runs.record(() -> {
+                int notes = purgeInChunks(() -> noteRepository.purgeExpiredSoftDeleted(cutoff, chunkSize),
+                        deletedNotes);
+                int items = purgeInChunks(() -> trashRepository.purgeExpired(cutoff, chunkSize), deletedTrashItems);
+                if (notes + items > 0) {
+                    log.info("Purged {} trashed notes and {} trash items deleted before {}", notes, items, cutoff);
+                }
+            });
+        } finally {
+            runningCutoff.set(0);
+        }
+    }
+
+    private int purgeInChunks(IntSupplier chunk, Counter deletedRows) {
+        int total = 0;
+        int deleted;
+        do {
+            deleted = chunk.getAsInt();
+            total += deleted;
+            deletedRows.increment(deleted);
+            chunks.increment();
+        } while (deleted == chunkSize && pause());
+        return total;
+    }
+
+    /**
+     * @return false if the purge should stop because the application is shutting down
+     */
+    private boolean pause() {
+        if (pause.isZero()) {
+            return !Thread.currentThread().isInterrupted();
+        }
+        try {
+            Thread.sleep(pause.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static Counter deleted(MeterRegistry meterRegistry, String store) {
+        return Counter.builder("app.trash.purge.deleted")
+                .tag("store", store)
+                .register(meterRegistry);
+    }
+}
@@ -1,28 +1,68 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.BulkResultDto;
 import com.example.demo.dto.TrashDto;
+import com.example.demo.dto.TrashItemDto;
+import com.example.demo.dto.TrashPageDto;
 import com.example.demo.model.Note;
 import com.example.demo.model.User;
 import com.example.demo.model.Trash;
+import com.example.demo.repository.GroupRepository;
 import com.example.demo.repository.NoteRepository;
 import com.example.demo.repository.TrashRepository;
+import com.example.demo.repository.projection.NoteIndexSourceView;
+import com.example.demo.repository.projection.TrashListItemView;
+import com.example.demo.repository.projection.TrashedNoteView;
+import com.example.demo.search.NoteSearchEngine;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
+/**
+ * The trash has two storage modes, chosen with app.trash.mode:
+ * <ul>
+ * <li>copy (default): a trashed note is copied into the trash table and deleted,
+ * and restored as a new note, without its group, collaborators and chat;</li>
+ * <li>soft: the note is only marked with deleted_at and trash IDs are note IDs.
+ * Moving and restoring are single UPDATEs that keep everything attached to the
+ * note.</li>
+ * </ul>
+ * In both modes expired items are removed by TrashRetentionPurger.
+ */
 @Service
 public class TrashService {
 
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final TrashRepository trashRepository;
     private final NoteRepository noteRepository;
     private final UserService userService;
+    private final NoteSearchEngine noteSearchEngine;
+    private final RecentNotesCache recentNotesCache;
+    private final GroupRepository groupRepository;
+    private final NoteWriteBuffer noteWriteBuffer;
+    private final boolean softDelete;
+    private final int previewChars;
 
-    public TrashService(TrashRepository trashRepository, NoteRepository noteRepository, UserService userService) {
+    public TrashService(TrashRepository trashRepository, NoteRepository noteRepository, UserService userService,
+            NoteSearchEngine noteSearchEngine, RecentNotesCache recentNotesCache, GroupRepository groupRepository,
+            NoteWriteBuffer noteWriteBuffer,
+            @Value("${app.trash.mode:copy}") String trashMode,
+            @Value("${app.trash.preview-chars:200}") int previewChars) {
         this.trashRepository = trashRepository;
         this.noteRepository = noteRepository;
         this.userService = userService;
+        this.noteSearchEngine = noteSearchEngine;
+        this.recentNotesCache = recentNotesCache;
+        this.groupRepository = groupRepository;
+        this.noteWriteBuffer = noteWriteBuffer;
+        this.softDelete = "soft".equalsIgnoreCase(trashMode);
+        this.previewChars = previewChars;
     }
 
     /**
@@ -33,7 +73,16 @@ public class TrashService {
      */
     @Transactional
     public void moveToTrash(Long noteId, String username) {
-        User user = userService.getUserByUsername(username);
+        // The trash keeps the note as last saved, which may still be buffered
+        noteWriteBuffer.flush(noteId);
+        if (softDelete) {
+            if (softDelete(userService.getUserId(username), new Long[] { noteId }) == 0) {
+                throw new RuntimeException("Note not found with id: " + noteId);
+            }
+            return;
+        }
+
+        User user = userService.getUserReference(username);
         Note note = noteRepository.findByIdAndOwner(noteId, user)
                 .orElseThrow(() -> new RuntimeException("Note not found with id: " + noteId));
 
@@ -46,6 +95,37 @@ public class TrashService {
 
         // Delete the original note
         noteRepository.delete(note);
+        if (note.getGroup() != null) {
+            groupRepository.adjustNoteCount(note.getGroup().getId(), -1);
+        }
+        noteSearchEngine.noteRemoved(user.getId(), noteId);
+        recentNotesCache.invalidate(user.getId());
+    }
+
+    /**
+     * Move several notes to trash in one statement
+     *
+     * @param noteIds  The IDs of the notes; notes the user does not own are skipped
+     * @param username The username of the user
+     * @return How many notes were moved
+     */
+    @Transactional
+    public BulkResultDto moveToTrash(List<Long> noteIds, String username) {
+        noteWriteBuffer.flush(noteIds);
+        Long ownerId = userService.getUserId(username);
+        if (softDelete) {
+            return new BulkResultDto(noteIds.size(), softDelete(ownerId, distinct(noteIds)));
+        }
+
+        List<Long> moved = trashRepository.moveNotesToTrash(ownerId, distinct(noteIds), LocalDateTime.now());
+
+        for (Long noteId : moved) {
+            noteSearchEngine.noteRemoved(ownerId, noteId);
+        }
+        if (!moved.isEmpty()) {
+            recentNotesCache.invalidate(ownerId);
+        }
+        return new BulkResultDto(noteIds.size(), moved.size());
     }
 
     /**
@@ -56,7 +136,13 @@ public class TrashService {
      */
     @Transactional(readOnly = true)
     public List<TrashDto> getTrashedItems(String username) {
-        User user = userService.getUserByUsername(username);
+        if (softDelete) {
+            return noteRepository.findTrashedByOwnerId(userService.getUserId(username)).stream()
+                    .map(this::mapTrashedNoteToTrashDto)
+                    .collect(Collectors.toList());
+        }
+
+        User user = userService.getUserReference(username);
         List<Trash> trashedItems = trashRepository.findByOwnerOrderByDeletedAtDesc(user);
 
         return trashedItems.stream()
@@ -64,6 +150,53 @@ public class TrashService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Get one page of the user's trash, most recently deleted first, using
+     * keyset pagination on (deletedAt, id). Items carry a preview of the
+     * content instead of the content itself.
+     *
+     * @param cursor   The continuation token of the previous page, or null for the
+     *                 first page
+     * @param size     The requested page size, clamped to [1, MAX_PAGE_SIZE]
+     * @param username The username of the user
+     * @return The page items and the token to fetch the next page with
+     */
+    @Transactional(readOnly = true)
+    public TrashPageDto getTrashPage(String cursor, int size, String username) {
+        Long ownerId = userService.getUserId(username);
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        int pageSize = size <= 0 ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+        // Fetch one extra row to find out whether another page exists
+        int limit = pageSize + 1;
+
+        List<TrashListItemView> rows;
+        if (softDelete) {
+            rows = position == null
+                    ? noteRepository.findTrashedListItemsPage(ownerId, previewChars, limit)
+                    : noteRepository.findTrashedListItemsPageAfter(ownerId, position.timestamp(), position.id(),
+                            previewChars, limit);
+        } else {
+            rows = position == null
+                    ? trashRepository.findListItemsPage(ownerId, previewChars, limit)
+                    : trashRepository.findListItemsPageAfter(ownerId, position.timestamp(), position.id(),
+                            previewChars, limit);
+        }
+
+        boolean hasMore = rows.size() > pageSize;
+        List<TrashListItemView> page = hasMore ? rows.subList(0, pageSize) : rows;
+
+        String nextCursor = null;
+        if (hasMore) {
+            TrashListItemView last = page.get(page.size() - 1);
+            nextCursor = new KeysetCursor(last.getDeletedAt(), last.getId()).encode();
+        }
+
+        List<TrashItemDto> items = page.stream()
+                .map(TrashService::mapToTrashItemDto)
+                .collect(Collectors.toList());
+        return new TrashPageDto(items, nextCursor);
+    }
+
     /**
      * Restore a note from trash
      * 
@@ -72,7 +205,14 @@ public class TrashService {
      */
     @Transactional
     public void restoreFromTrash(Long trashId, String username) {
-        User user = userService.getUserByUsername(username);
+        if (softDelete) {
+            if (restoreSoftDeleted(userService.getUserId(username), new Long[] { trashId }) == 0) {
+                throw new RuntimeException("Trashed item not found with id: " + trashId);
+            }
+            return;
+        }
+
+        User user = userService.getUserReference(username);
         Trash trash = trashRepository.findByIdAndOwner(trashId, user);
 
         if (trash == null) {
@@ -89,11 +229,37 @@ public class TrashService {
 
         // Save the restored note
         noteRepository.save(note);
+        noteSearchEngine.noteSaved(note);
+        recentNotesCache.invalidate(user.getId());
 
         // Delete the trash entity
         trashRepository.delete(trash);
     }
 
+    /**
+     * Restore several notes from trash in one statement
+     *
+     * @param trashIds The IDs of the trashed items; items the user does not own are skipped
+     * @param username The username of the user
+     * @return How many notes were restored
+     */
+    @Transactional
+    public BulkResultDto restoreFromTrash(List<Long> trashIds, String username) {
+        Long ownerId = userService.getUserId(username);
+        if (softDelete) {
+            return new BulkResultDto(trashIds.size(), restoreSoftDeleted(ownerId, distinct(trashIds)));
+        }
+
+        List<NoteIndexSourceView> restored = trashRepository.restoreToNotes(ownerId, distinct(trashIds),
+                LocalDateTime.now());
+
+        if (!restored.isEmpty()) {
+            noteSearchEngine.notesSaved(ownerId, restored);
+            recentNotesCache.invalidate(ownerId);
+        }
+        return new BulkResultDto(trashIds.size(), restored.size());
+    }
+
     /**
      * Permanently delete a note from trash
      * 
@@ -102,7 +268,14 @@ public class TrashService {
      */
     @Transactional
     public void permanentlyDelete(Long trashId, String username) {
-        User user = userService.getUserByUsername(username);
+        if (softDelete) {
+            if (noteRepository.purgeSoftDeleted(userService.getUserId(username), new Long[] { trashId }) == 0) {
+                throw new RuntimeException("Trashed item not found with id: " + trashId);
+            }
+            return;
+        }
+
+        User user = userService.getUserReference(username);
         Trash trash = trashRepository.findByIdAndOwner(trashId, user);
 
         if (trash == null) {
@@ -114,17 +287,64 @@ public class TrashService {
     }
 
     /**
-     * Empty the trash by permanently deleting all trashed items
+     * Permanently delete several items from trash in one statement
+     *
+     * @param trashIds The IDs of the trashed items; items the user does not own are skipped
+     * @param username The username of the user
+     * @return How many items were deleted
+     */
+    @Transactional
+    public BulkResultDto permanentlyDelete(List<Long> trashIds, String username) {
+        Long ownerId = userService.getUserId(username);
+        int deleted = softDelete
+                ? noteRepository.purgeSoftDeleted(ownerId, distinct(trashIds))
+                : trashRepository.deleteByOwnerIdAndIds(ownerId, distinct(trashIds));
+        return new BulkResultDto(trashIds.size(), deleted);
+    }
+
+    /**
+     * Empty the trash by permanently deleting all trashed items in one statement
      * 
      * @param username The username of the user
      */
     @Transactional
     public void emptyTrash(String username) {
-        User user = userService.getUserByUsername(username);
-        List<Trash> trashedItems = trashRepository.findByOwnerOrderByDeletedAtDesc(user);
+        Long ownerId = userService.getUserId(username);
+        if (softDelete) {
+            noteRepository.purgeSoftDeletedByOwnerId(ownerId);
+        } else {
+            trashRepository.deleteByOwnerId(ownerId);
+        }
+    }
 
-        // Delete all trashed items
-        trashRepository.deleteAll(trashedItems);
+    /**
+     * @return How many of the notes were moved to trash
+     */
+    private int softDelete(Long ownerId, Long[] noteIds) {
+        List<Long> trashed = noteRepository.softDelete(ownerId, noteIds, LocalDateTime.now());
+        for (Long noteId : trashed) {
+            noteSearchEngine.noteRemoved(ownerId, noteId);
+        }
+        if (!trashed.isEmpty()) {
+            recentNotesCache.invalidate(ownerId);
+        }
+        return trashed.size();
+    }
+
+    /**
+     * @return How many of the notes were restored
+     */
+    private int restoreSoftDeleted(Long ownerId, Long[] noteIds) {
+        List<NoteIndexSourceView> restored = noteRepository.restoreSoftDeleted(ownerId, noteIds, LocalDateTime.now());
+        if (!restored.isEmpty()) {
+            noteSearchEngine.notesSaved(ownerId, restored);
+            recentNotesCache.invalidate(ownerId);
+        }
+        return restored.size();
+    }
+
+    private static Long[] distinct(List<Long> ids) {
+        return ids.stream().distinct().toArray(Long[]::new);
     }
 
     /**
@@ -133,7 +353,7 @@ public class TrashService {
      * @param trash The trash entity
      * @return The trash DTO
      */
-    private TrashDto mapToTrashDto(Trash trash) {
+    TrashDto mapToTrashDto(Trash trash) {
         TrashDto dto = new TrashDto();
         dto.setId(trash.getId());
         dto.setTitle(trash.getTitle());
@@ -142,14 +362,32 @@ public class TrashService {
         dto.setDeletedAt(trash.getDeletedAt());
         dto.setOriginalNoteId(trash.getOriginalNoteId());
 
-        // Calculate participant count from stored collaborator info
-        int participantCount = 1; // Owner
-        if (trash.getCollaboratorsInfo() != null && !trash.getCollaboratorsInfo().isEmpty()) {
-            String[] collaboratorIds = trash.getCollaboratorsInfo().split(",");
-            participantCount += collaboratorIds.length;
-        }
-        dto.setParticipantCount(participantCount);
+        // The owner + the collaborators the note had when it was trashed
+        dto.setParticipantCount(1 + trash.getCollaboratorCount());
 
         return dto;
     }
+
+    /**
+     * Map a soft-deleted note to a TrashDto; the trash ID is the note ID
+     *
+     * @param note The trashed note
+     * @return The trash DTO
+     */
+    TrashDto mapTrashedNoteToTrashDto(TrashedNoteView note) {
+        TrashDto dto = new TrashDto();
+        dto.setId(note.getId());
+        dto.setTitle(note.getTitle());
+        dto.setContent(note.getContent());
+        dto.setCreatedAt(note.getCreatedAt());
+        dto.setDeletedAt(note.getDeletedAt());
+        dto.setOriginalNoteId(note.getId());
+        dto.setParticipantCount(1 + note.getCollaboratorCount());
+        return dto;
+    }
+
+    private static TrashItemDto mapToTrashItemDto(TrashListItemView item) {
+        return new TrashItemDto(item.getId(), item.getTitle(), item.getPreview(), item.getCreatedAt(),
+                item.getDeletedAt(), item.getOriginalNoteId(), 1 + item.getCollaboratorCount());
+    }
 }
\ No newline at end of file
@@ -1,9 +1,14 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.CurrentUserDto;
 import com.example.demo.model.User;
 import com.example.demo.repository.UserRepository;
+import com.example.demo.service.auth.AuthenticatedUser;
 import com.example.demo.service.auth.EmailService;
+import com.example.demo.service.auth.UserIdentityCache;
 
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
@@ -13,8 +18,11 @@ import java.util.List;
 @Service
 public class UserService {
     private final UserRepository userRepository;
-    public UserService(UserRepository userRepository, EmailService emailService) {
+    private final UserIdentityCache userIdentityCache;
+
+    public UserService(UserRepository userRepository, EmailService emailService, UserIdentityCache userIdentityCache) {
         this.userRepository = userRepository;
+        this.userIdentityCache = userIdentityCache;
     }
 
     public List<User> allUsers() {
@@ -23,8 +31,48 @@ public class UserService {
         return users;
     }
 
+    /**
+     * Loads the full User entity. Prefer getUserId or getUserReference when
+     * only the identity of the user is needed.
+     */
     public User getUserByUsername(String username) {
         return userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
     }
+
+    public CurrentUserDto getCurrentUser(String username) {
+        return userRepository.findCurrentUserByUsername(username)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+    }
+
+    /**
+     * Resolves the identity of a user without a database round-trip in the common
+     * case: the principal of the current request is used when it matches,
+     * otherwise the identity cache, which only queries on a miss.
+     */
+    public AuthenticatedUser getAuthenticatedUser(String username) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser principal
+                && principal.username().equals(username)) {
+            return principal;
+        }
+        return userIdentityCache.get(username, this::loadAuthenticatedUser);
+    }
+
+    public Long getUserId(String username) {
+        return getAuthenticatedUser(username).id();
+    }
+
+    /**
+     * Returns an uninitialized reference to the user, suitable for setting
+     * associations and for owner-scoped queries, without loading the users row.
+     */
+    public User getUserReference(String username) {
+        return userRepository.getReferenceById(getUserId(username));
+    }
+
+    private AuthenticatedUser loadAuthenticatedUser(String username) {
+        return userRepository.findAuthenticatedUserByUsername(username)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+    }
 }
\ No newline at end of file
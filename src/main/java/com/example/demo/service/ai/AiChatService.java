@@ -1,65 +1,137 @@
 package com.example.demo.service.ai;
 
 import com.example.demo.dto.AiChatMessageDto;
+import com.example.demo.dto.ChatHistoryPageDto;
 import com.example.demo.model.AiChatMessage;
-import com.example.demo.model.AiMessageRole;
 import com.example.demo.model.Note;
-import com.example.demo.model.User;
 import com.example.demo.repository.AiChatMessageRepository;
 import com.example.demo.repository.NoteRepository;
+import com.example.demo.service.NoteWriteBuffer;
+import com.example.demo.service.RecentNotesCache;
 import com.example.demo.service.UserService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.time.LocalDateTime;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class AiChatService {
 
+    private static final int DEFAULT_HISTORY_PAGE_SIZE = 50;
+    private static final int MAX_HISTORY_PAGE_SIZE = 200;
+
     private final NoteRepository noteRepository;
     private final AiChatMessageRepository aiChatMessageRepository;
-    private final GeminiService geminiService;
+    private final LlmGateway llmGateway;
     private final UserService userService; // Assuming you have a UserService
+    private final RecentNotesCache recentNotesCache;
+    private final ChatMessageSaverService chatMessageSaverService;
+    private final ExecutorService aiChatExecutor;
+    private final PromptContextBuilder promptContextBuilder;
+    private final LlmResponseCache llmResponseCache;
+    private final NoteWriteBuffer noteWriteBuffer;
+
+    @Value("${app.ai.chat.stream-timeout:120s}")
+    private Duration streamTimeout;
+
+    /**
+     * Sends a message; the future completes with the saved answer. The turn runs
+     * on the chat executor: the user message is saved and the history loaded in one short
+     * transaction, the model is called with no transaction or connection held, and
+     * the answer is saved in a second short transaction.
+     */
+    public CompletableFuture<AiChatMessageDto> sendMessage(Long noteId, String userMessageContent, String username) {
+        Long currentUserId = userService.getUserId(username);
+        return CompletableFuture.supplyAsync(() -> {
+            // The prompt is built from the note as last saved, which may still be buffered
+            noteWriteBuffer.flush(noteId);
+            ChatTurn turn = chatMessageSaverService.startTurn(noteId, currentUserId, userMessageContent);
+            String aiResponseContent = answer(buildPrompt(turn));
+            return finishTurn(turn, aiResponseContent);
+        }, aiChatExecutor);
+    }
 
-    @Transactional
-    public AiChatMessageDto sendMessage(Long noteId, String userMessageContent, String username) {
-        User currentUser = userService.getUserByUsername(username);
-        Note note = noteRepository.findById(noteId)
-                .orElseThrow(() -> new RuntimeException("Note not found with id: " + noteId));
-
-        // Security Check: Ensure the user can access this note
-        checkNoteAccess(note, currentUser);
-
-        // 1. Save the user's message
-        AiChatMessage userMessage = new AiChatMessage();
-        userMessage.setNote(note);
-        userMessage.setRole(AiMessageRole.USER);
-        userMessage.setContent(userMessageContent);
-        aiChatMessageRepository.save(userMessage);
-
-        // 2. Build the complete prompt for the AI
-        String fullPrompt = buildPrompt(note, userMessageContent);
-
-        // 3. Call the AI service
-        String aiResponseContent = geminiService.askGemini(fullPrompt);
+    /**
+     * Same stages as sendMessage, but the answer is streamed to the client as it
+     * is generated: a "token" event per chunk, then a "done" event with the saved
+     * message. All database work happens on the chat executor, so the request
+     * thread (and its open-in-view session) never touches a connection.
+     */
+    public SseEmitter streamMessage(Long noteId, String userMessageContent, String username) {
+        Long currentUserId = userService.getUserId(username);
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+        aiChatExecutor.execute(() -> {
+            try {
+                noteWriteBuffer.flush(noteId);
+                ChatTurn turn = chatMessageSaverService.startTurn(noteId, currentUserId, userMessageContent);
+                String aiResponseContent = streamAnswer(buildPrompt(turn), emitter);
+                AiChatMessageDto saved = finishTurn(turn, aiResponseContent);
+                send(emitter, SseEmitter.event().name("done").data(saved, MediaType.APPLICATION_JSON));
+                emitter.complete();
+            } catch (UncheckedIOException e) {
+                // The client went away; the partial answer is not saved, but the async
+                // request still has to be completed so the container releases it
+                log.debug("Chat stream for note {} closed by the client", noteId);
+                emitter.completeWithError(e);
+            } catch (RuntimeException e) {
+                emitter.completeWithError(e);
+            }
+        });
+        return emitter;
+    }
 
-        // 4. Save the AI's response
-        AiChatMessage aiMessage = new AiChatMessage();
-        aiMessage.setNote(note);
-        aiMessage.setRole(AiMessageRole.MODEL);
-        aiMessage.setContent(aiResponseContent);
-        AiChatMessage savedAiMessage = aiChatMessageRepository.save(aiMessage);
+    /**
+     * @return The cached or fresh answer, or the fallback if the model is unavailable
+     */
+    private String answer(String prompt) {
+        try {
+            return llmResponseCache.get(prompt, llmGateway::generate);
+        } catch (LlmUnavailableException e) {
+            log.warn("Answering with the fallback: {}", e.getMessage());
+            return llmGateway.getFallbackAnswer();
+        }
+    }
 
-        // 5. Update the note's last activity timestamp
-        note.setLastActivity(LocalDateTime.now());
-        noteRepository.save(note);
+    /**
+     * Streams a fresh answer, or sends a cached one (or the fallback) as a single
+     * token event.
+     */
+    private String streamAnswer(String prompt, SseEmitter emitter) {
+        String answer = llmResponseCache.getIfPresent(prompt);
+        if (answer == null) {
+            try {
+                answer = llmGateway.stream(prompt,
+                        chunk -> send(emitter, SseEmitter.event().name("token").data(chunk)));
+                llmResponseCache.put(prompt, answer);
+                return answer;
+            } catch (LlmUnavailableException e) {
+                log.warn("Answering with the fallback: {}", e.getMessage());
+                answer = llmGateway.getFallbackAnswer();
+            }
+        }
+        send(emitter, SseEmitter.event().name("token").data(answer));
+        return answer;
+    }
 
-        // 6. Return the new AI message as a DTO
+    private AiChatMessageDto finishTurn(ChatTurn turn, String aiResponseContent) {
+        AiChatMessage savedAiMessage = chatMessageSaverService.finishTurn(turn.note().getId(), aiResponseContent);
+        recentNotesCache.invalidate(turn.ownerId());
         return new AiChatMessageDto(
                 savedAiMessage.getId(),
                 savedAiMessage.getRole(),
@@ -67,57 +139,73 @@ public class AiChatService {
                 savedAiMessage.getCreatedAt());
     }
 
+    private static void send(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     @Transactional(readOnly = true)
     public List<AiChatMessageDto> getChatHistory(Long noteId, String username) {
-        User currentUser = userService.getUserByUsername(username);
+        Long currentUserId = userService.getUserId(username);
         Note note = noteRepository.findById(noteId)
                 .orElseThrow(() -> new RuntimeException("Note not found with id: " + noteId));
 
         // Security Check
-        checkNoteAccess(note, currentUser);
-
-        List<AiChatMessage> messages = aiChatMessageRepository.findByNoteIdOrderByCreatedAtAsc(noteId);
+        checkNoteAccess(note, currentUserId);
 
-        return messages.stream()
-                .map(msg -> new AiChatMessageDto(msg.getId(), msg.getRole(), msg.getContent(), msg.getCreatedAt()))
-                .collect(Collectors.toList());
+        return aiChatMessageRepository.findDtosByNoteId(noteId);
     }
 
-    private String buildPrompt(Note note, String newQuery) {
-        StringBuilder promptBuilder = new StringBuilder();
-
-        // System-level instruction
-        promptBuilder.append("You are a helpful assistant integrated into a note-taking app. ");
-        promptBuilder.append("The user is currently working on the note provided below. ");
-        promptBuilder.append("Your primary context is this note. All your responses should be relevant to it. ");
-        promptBuilder.append(
-                "Do not refer to the note as 'the provided note', just use its content as your knowledge base.\n\n");
-
-        // The Note Content (The most important context!)
-        promptBuilder.append("--- NOTE START ---\n");
-        promptBuilder.append("Title: ").append(note.getTitle()).append("\n\n");
-        promptBuilder.append(note.getContent()).append("\n");
-        promptBuilder.append("--- NOTE END ---\n\n");
-
-        // The Chat History
-        promptBuilder.append("--- CHAT HISTORY START ---\n");
-        List<AiChatMessage> history = aiChatMessageRepository.findByNoteIdOrderByCreatedAtAsc(note.getId());
-        for (AiChatMessage message : history) {
-            promptBuilder.append(message.getRole().name()).append(": ").append(message.getContent()).append("\n");
+    /**
+     * Get one page of a note's chat history using keyset pagination. Without a
+     * cursor the latest messages are returned; before pages towards older
+     * messages and after towards newer ones.
+     *
+     * @param before   Return messages older than this message ID, may be null
+     * @param after    Return messages newer than this message ID, may be null; ignored if before is set
+     * @param size     The requested page size, clamped to [1, MAX_HISTORY_PAGE_SIZE]
+     * @param username The username of the user
+     * @return The page in chronological order
+     */
+    @Transactional(readOnly = true)
+    public ChatHistoryPageDto getChatHistoryPage(Long noteId, Long before, Long after, int size, String username) {
+        Long currentUserId = userService.getUserId(username);
+        Note note = noteRepository.findById(noteId)
+                .orElseThrow(() -> new RuntimeException("Note not found with id: " + noteId));
+        checkNoteAccess(note, currentUserId);
+
+        int pageSize = size <= 0 ? DEFAULT_HISTORY_PAGE_SIZE : Math.min(size, MAX_HISTORY_PAGE_SIZE);
+        // Fetch one extra row to find out whether another page exists
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+
+        List<AiChatMessageDto> rows;
+        if (before != null) {
+            rows = aiChatMessageRepository.findDtosBefore(noteId, before, limit);
+        } else if (after != null) {
+            rows = aiChatMessageRepository.findDtosAfter(noteId, after, limit);
+        } else {
+            rows = aiChatMessageRepository.findLatestDtos(noteId, limit);
         }
-        // The history already includes the latest user message we just saved, so we
-        // don't need to append `newQuery` again.
-        promptBuilder.append("--- CHAT HISTORY END ---\n\n");
 
-        promptBuilder.append(
-                "Based on the note and the chat history but you can also search online and use other resources, answer the last user message.");
+        boolean hasMore = rows.size() > pageSize;
+        List<AiChatMessageDto> page = new ArrayList<>(hasMore ? rows.subList(0, pageSize) : rows);
+        if (before != null || after == null) {
+            // Older pages are read newest first
+            Collections.reverse(page);
+        }
+        return new ChatHistoryPageDto(page, hasMore);
+    }
 
-        return promptBuilder.toString();
+    private String buildPrompt(ChatTurn turn) {
+        return promptContextBuilder.build(turn.note(), turn.summary(), turn.history());
     }
 
-    private void checkNoteAccess(Note note, User user) {
-        boolean isOwner = note.getOwner().getId().equals(user.getId());
-        boolean isCollaborator = note.getCollaborators().stream().anyMatch(c -> c.getId().equals(user.getId()));
+    static void checkNoteAccess(Note note, Long userId) {
+        boolean isOwner = note.getOwner().getId().equals(userId);
+        boolean isCollaborator = note.getCollaborators().stream().anyMatch(c -> c.getId().equals(userId));
 
         if (!isOwner && !isCollaborator) {
             throw new AccessDeniedException("User does not have access to this note.");
@@ -5,19 +5,35 @@ import com.example.demo.model.AiMessageRole;
 import com.example.demo.model.Note;
 import com.example.demo.repository.AiChatMessageRepository;
 import com.example.demo.repository.NoteRepository;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The database stages of a chat turn. Each runs in its own short transaction,
+ * so that no connection is held while the model is generating.
+ */
 @Service
 public class ChatMessageSaverService {
 
+    /** Upper bound of messages folded into the summary per turn, when catching up on old conversations. */
+    private static final int MAX_FOLD_PER_TURN = 200;
+
     private final NoteRepository noteRepository;
     private final AiChatMessageRepository chatMessageRepository;
+    private final PromptContextBuilder promptContextBuilder;
 
-    public ChatMessageSaverService(NoteRepository noteRepository, AiChatMessageRepository chatMessageRepository) {
+    public ChatMessageSaverService(NoteRepository noteRepository, AiChatMessageRepository chatMessageRepository,
+            PromptContextBuilder promptContextBuilder) {
         this.noteRepository = noteRepository;
         this.chatMessageRepository = chatMessageRepository;
+        this.promptContextBuilder = promptContextBuilder;
     }
 
     @Transactional(propagation = Propagation.REQUIRES_NEW)
@@ -30,4 +46,61 @@ public class ChatMessageSaverService {
         chatMessage.setRole(role);
         chatMessageRepository.save(chatMessage);
     }
+
+    /**
+     * First stage: checks access, saves the user's message, loads the recent
+     * history window and folds messages that left the window into the note's
+     * rolling summary.
+     */
+    @Transactional
+    public ChatTurn startTurn(Long noteId, Long userId, String userMessageContent) {
+        Note note = noteRepository.findById(noteId)
+                .orElseThrow(() -> new RuntimeException("Note not found with id: " + noteId));
+        AiChatService.checkNoteAccess(note, userId);
+
+        AiChatMessage userMessage = new AiChatMessage();
+        userMessage.setNote(note);
+        userMessage.setRole(AiMessageRole.USER);
+        userMessage.setContent(userMessageContent);
+        chatMessageRepository.save(userMessage);
+
+        List<AiChatMessage> window = new ArrayList<>(chatMessageRepository.findByNoteIdOrderByIdDesc(
+                noteId, PageRequest.of(0, promptContextBuilder.getHistoryWindow())));
+        Collections.reverse(window);
+
+        String summary = foldOutOfWindow(note, window);
+        return new ChatTurn(note, note.getOwner().getId(), summary, window);
+    }
+
+    private String foldOutOfWindow(Note note, List<AiChatMessage> window) {
+        long summarizedUntil = note.getChatSummarizedUntil() != null ? note.getChatSummarizedUntil() : 0L;
+        long oldestInWindow = window.get(0).getId();
+        if (oldestInWindow - 1 <= summarizedUntil) {
+            return note.getChatSummary();
+        }
+
+        List<AiChatMessage> outOfWindow = chatMessageRepository.findByNoteIdAndIdBetweenOrderByIdAsc(
+                note.getId(), summarizedUntil + 1, oldestInWindow - 1, PageRequest.of(0, MAX_FOLD_PER_TURN));
+        if (outOfWindow.isEmpty()) {
+            return note.getChatSummary();
+        }
+        String summary = promptContextBuilder.fold(note.getChatSummary(), outOfWindow);
+        noteRepository.updateChatSummary(note.getId(), summary, outOfWindow.get(outOfWindow.size() - 1).getId());
+        return summary;
+    }
+
+    /**
+     * Last stage: saves the model's answer and bumps the note's last activity.
+     */
+    @Transactional
+    public AiChatMessage finishTurn(Long noteId, String aiResponseContent) {
+        AiChatMessage aiMessage = new AiChatMessage();
+        aiMessage.setNote(noteRepository.getReferenceById(noteId));
+        aiMessage.setRole(AiMessageRole.MODEL);
+        aiMessage.setContent(aiResponseContent);
+        AiChatMessage savedAiMessage = chatMessageRepository.save(aiMessage);
+
+        noteRepository.touchLastActivity(noteId, LocalDateTime.now());
+        return savedAiMessage;
+    }
 }
@@ -0,0 +1,15 @@
+package com.example.demo.service.ai;
+
+import com.example.demo.model.AiChatMessage;
+import com.example.demo.model.Note;
+
+import java.util.List;
+
+/**
+ * Everything the model call needs, loaded in one short transaction: the note,
+ * its owner, the rolling summary of older messages and the recent history window
+ * including the new user message. The entities are detached; only their basic
+ * attributes are read.
+ */
+record ChatTurn(Note note, Long ownerId, String summary, List<AiChatMessage> history) {
+}
@@ -1,25 +1,51 @@
 package com.example.demo.service.ai;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
 import com.google.genai.Client;
+import com.google.genai.ResponseStream;
 import com.google.genai.types.GenerateContentResponse;
 
+import java.util.function.Consumer;
+
 @Service
-public class GeminiService {
+@ConditionalOnProperty(name = "app.ai.client", havingValue = "gemini", matchIfMissing = true)
+public class GeminiService implements LlmClient {
     private final Client client;
+    private final String model;
 
-    public GeminiService(@Value("${google.api.key}") String apiKey) {
+    public GeminiService(@Value("${google.api.key}") String apiKey,
+            @Value("${app.ai.gemini.model:gemini-2.0-flash}") String model) {
         this.client = Client.builder().apiKey(apiKey).build();
+        this.model = model;
     }
 
-    public String askGemini(String promt) {
-
+    @Override
+    public String generate(String prompt) {
         GenerateContentResponse response = client.models.generateContent(
-                "gemini-2.0-flash",
-                promt,
+                model,
+                prompt,
                 null);
         return response.text();
     }
+
+    @Override
+    public String stream(String prompt, Consumer<String> onChunk) {
+        StringBuilder answer = new StringBuilder();
+        try (ResponseStream<GenerateContentResponse> stream = client.models.generateContentStream(
+                model,
+                prompt,
+                null)) {
+            for (GenerateContentResponse chunk : stream) {
+                String text = chunk.text();
+                if (text != null && !text.isEmpty()) {
+                    answer.append(text);
+                    onChunk.accept(text);
+                }
+            }
+        }
+        return answer.toString();
+    }
 }
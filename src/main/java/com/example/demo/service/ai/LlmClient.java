@@ -0,0 +1,24 @@
+package com.example.demo.service.ai;
+
+import java.util.function.Consumer;
+
+/**
+ * A text generation model. Implementations are selected with app.ai.client:
+ * "gemini" (default) or "stub" for offline runs. Callers go through
+ * {@link LlmGateway}, which bounds concurrency, rather than using a client directly.
+ */
+public interface LlmClient {
+
+    /**
+     * @return The complete answer to the prompt
+     */
+    String generate(String prompt);
+
+    /**
+     * Streams the answer: every non-empty text chunk is passed to onChunk as soon
+     * as it arrives.
+     *
+     * @return The complete answer
+     */
+    String stream(String prompt, Consumer<String> onChunk);
+}
@@ -0,0 +1,164 @@
+package com.example.demo.service.ai;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Bulkhead around the {@link LlmClient}: at most max-concurrent model calls run
+ * at once, at most max-queue callers wait for a slot and none waits longer than
+ * max-wait. A blocking call that exceeds call-timeout is abandoned by the caller,
+ * but keeps its slot until the model actually answers, so the limit always
+ * reflects the load on the model quota.
+ * Rejections, timeouts and failures surface as {@link LlmUnavailableException};
+ * the fallback answer is what callers should show instead.
+ * The gauges "app.ai.bulkhead.active" and "app.ai.bulkhead.queued" show the
+ * slots in use and the callers waiting; "app.ai.bulkhead.rejected" counts the
+ * failed calls by reason.
+ */
+@Component
+public class LlmGateway {
+
+    private final LlmClient llmClient;
+    private final ExecutorService aiChatExecutor;
+    private final Semaphore permits;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final int maxQueue;
+    private final Duration maxWait;
+    private final Duration callTimeout;
+    private final String fallbackAnswer;
+    private final Counter queueFull;
+    private final Counter waitTimeouts;
+    private final Counter callTimeouts;
+    private final Counter failures;
+
+    public LlmGateway(LlmClient llmClient, ExecutorService aiChatExecutor, MeterRegistry meterRegistry,
+            @Value("${app.ai.bulkhead.max-concurrent:16}") int maxConcurrent,
+            @Value("${app.ai.bulkhead.max-queue:100}") int maxQueue,
+            @Value("${app.ai.bulkhead.max-wait:10s}") Duration maxWait,
+            @Value("${app.ai.bulkhead.call-timeout:60s}") Duration callTimeout,
+            @Value("${app.ai.fallback-answer:The assistant is busy right now. Please try again in a moment.}") String fallbackAnswer) {
+        this.llmClient = llmClient;
+        this.aiChatExecutor = aiChatExecutor;
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.maxQueue = maxQueue;
+        this.maxWait = maxWait;
+        this.callTimeout = callTimeout;
+        this.fallbackAnswer = fallbackAnswer;
+
+        Gauge.builder("app.ai.bulkhead.active", permits, p -> maxConcurrent - p.availablePermits())
+                .register(meterRegistry);
+        Gauge.builder("app.ai.bulkhead.queued", queued, AtomicInteger::get)
+                .register(meterRegistry);
+        this.queueFull = rejected(meterRegistry, "queue_full");
+        this.waitTimeouts = rejected(meterRegistry, "wait_timeout");
+        this.callTimeouts = rejected(meterRegistry, "call_timeout");
+        this.failures = rejected(meterRegistry, "error");
+    }
+
+    /**
+     * @return The complete answer
+     * @throws LlmUnavailableException if no slot frees up in time, or the call
+     *                                 times out or fails
+     */
+    public String generate(String prompt) {
+        acquire();
+        CompletableFuture<String> call;
+        try {
+            call = CompletableFuture.supplyAsync(() -> llmClient.generate(prompt), aiChatExecutor);
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            failures.increment();
+            throw new LlmUnavailableException("Model call could not be scheduled", e);
+        }
+        call.whenComplete((answer, error) -> permits.release());
+
+        try {
+            return call.get(callTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            callTimeouts.increment();
+            throw new LlmUnavailableException("Model call timed out after " + callTimeout);
+        } catch (ExecutionException e) {
+            failures.increment();
+            throw new LlmUnavailableException("Model call failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LlmUnavailableException("Interrupted while waiting for the model", e);
+        }
+    }
+
+    /**
+     * Streams the answer on the calling thread. Only the wait for a slot is
+     * bounded here; the stream itself is bounded by the caller's emitter timeout.
+     * An exception thrown by onChunk, e.g. because the client went away, is
+     * passed through unchanged.
+     *
+     * @throws LlmUnavailableException if no slot frees up in time or the model call fails
+     */
+    public String stream(String prompt, Consumer<String> onChunk) {
+        acquire();
+        AtomicReference<RuntimeException> consumerFailure = new AtomicReference<>();
+        try {
+            return llmClient.stream(prompt, chunk -> {
+                try {
+                    onChunk.accept(chunk);
+                } catch (RuntimeException e) {
+                    consumerFailure.set(e);
+                    throw e;
+                }
+            });
+        } catch (RuntimeException e) {
+            // Whatever the client made of it, a failing consumer is the caller's problem
+            if (consumerFailure.get() != null) {
+                throw consumerFailure.get();
+            }
+            failures.increment();
+            throw new LlmUnavailableException("Model call failed", e);
+        } finally {
+            permits.release();
+        }
+    }
+
+    public String getFallbackAnswer() {
+        return fallbackAnswer;
+    }
+
+    private void acquire() {
+        if (queued.incrementAndGet() > maxQueue) {
+            queued.decrementAndGet();
+            queueFull.increment();
+            throw new LlmUnavailableException("Too many model calls waiting");
+        }
+        try {
+            if (!permits.tryAcquire(maxWait.toMillis(), TimeUnit.MILLISECONDS)) {
+                waitTimeouts.increment();
+                throw new LlmUnavailableException("No model call slot freed up within " + maxWait);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LlmUnavailableException("Interrupted while waiting for a model call slot", e);
+        } finally {
+            queued.decrementAndGet();
+        }
+    }
+
+    private static Counter rejected(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("app.ai.bulkhead.rejected")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
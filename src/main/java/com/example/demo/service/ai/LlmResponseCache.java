@@ -0,0 +1,148 @@
+package com.example.demo.service.ai;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Caches model answers by a SHA-256 hash of the normalized prompt (trimmed, runs
+ * of whitespace collapsed), in a bounded LRU with a TTL. Concurrent calls with
+ * the same prompt share one in-flight model call instead of each making their
+ * own.
+ * The prompt embeds the note and chat history it was built from, so an answer
+ * is only ever reused for exactly the same context.
+ * Results are counted in "app.ai.response-cache.requests" tagged result=hit, miss
+ * or coalesced; size and evictions are published as the "llmResponses" cache
+ * metrics.
+ */
+@Component
+public class LlmResponseCache {
+
+    private final boolean enabled;
+    private final Cache<String, String> cache;
+    private final ConcurrentMap<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter coalesced;
+
+    public LlmResponseCache(MeterRegistry meterRegistry,
+            @Value("${app.ai.response-cache.enabled:true}") boolean enabled,
+            @Value("${app.ai.response-cache.ttl:10m}") Duration ttl,
+            @Value("${app.ai.response-cache.max-size:1000}") long maxSize) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "llmResponses");
+        this.hits = requests(meterRegistry, "hit");
+        this.misses = requests(meterRegistry, "miss");
+        this.coalesced = requests(meterRegistry, "coalesced");
+    }
+
+    /**
+     * Returns the cached answer, joins an identical call in flight, or calls the
+     * model. Failures are not cached; they are passed to every coalesced caller.
+     *
+     * @param prompt The prompt sent to the model
+     * @param model  Calls the model with the prompt
+     * @return The answer
+     */
+    public String get(String prompt, Function<String, String> model) {
+        if (!enabled) {
+            return model.apply(prompt);
+        }
+        String key = key(prompt);
+        String answer = cache.getIfPresent(key);
+        if (answer != null) {
+            hits.increment();
+            return answer;
+        }
+
+        CompletableFuture<String> call = new CompletableFuture<>();
+        CompletableFuture<String> leader = inFlight.putIfAbsent(key, call);
+        if (leader != null) {
+            coalesced.increment();
+            return await(leader);
+        }
+
+        misses.increment();
+        try {
+            answer = model.apply(prompt);
+            if (answer != null) {
+                cache.put(key, answer);
+            }
+            call.complete(answer);
+            return answer;
+        } catch (RuntimeException e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    /**
+     * @return The cached answer, or null; counted as a hit or a miss
+     */
+    public String getIfPresent(String prompt) {
+        if (!enabled) {
+            return null;
+        }
+        String answer = cache.getIfPresent(key(prompt));
+        (answer != null ? hits : misses).increment();
+        return answer;
+    }
+
+    /**
+     * Stores an answer that was obtained without going through get, e.g. streamed.
+     */
+    public void put(String prompt, String answer) {
+        if (enabled && answer != null) {
+            cache.put(key(prompt), answer);
+        }
+    }
+
+    static String key(String prompt) {
+        String normalized = prompt.strip().replaceAll("\\s+", " ");
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(normalized.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String await(CompletableFuture<String> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static Counter requests(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("app.ai.response-cache.requests")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.demo.service.ai;
+
+/**
+ * Thrown by {@link LlmGateway} when a model call is rejected by the bulkhead,
+ * times out or fails; callers answer with the fallback instead.
+ */
+public class LlmUnavailableException extends RuntimeException {
+
+    public LlmUnavailableException(String message) {
+        super(message);
+    }
+
+    public LlmUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.demo.service.ai;
+
+import com.example.demo.model.AiChatMessage;
+import com.example.demo.model.Note;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Builds the model prompt within a fixed token budget, so the cost of a turn
+ * does not grow with the length of the conversation:
+ * <ul>
+ * <li>the note content gets at most a configurable share of the budget;</li>
+ * <li>only a sliding window of recent messages is loaded, and the newest that fit
+ * the remaining budget are included (the current question always is);</li>
+ * <li>messages that left the window are kept as a rolling, bounded summary on
+ * the note, built extractively from their first sentences.</li>
+ * </ul>
+ * Tokens are estimated as four characters each. The builder is pre-sized to the
+ * exact prompt length.
+ */
+@Component
+public class PromptContextBuilder {
+
+    private static final int CHARS_PER_TOKEN = 4;
+    private static final int SUMMARY_LINE_MAX_CHARS = 200;
+
+    private static final String INSTRUCTIONS = "You are a helpful assistant integrated into a note-taking app. "
+            + "The user is currently working on the note provided below. "
+            + "Your primary context is this note. All your responses should be relevant to it. "
+            + "Do not refer to the note as 'the provided note', just use its content as your knowledge base.\n\n";
+    private static final String NOTE_START = "--- NOTE START ---\nTitle: ";
+    private static final String NOTE_END = "--- NOTE END ---\n\n";
+    private static final String NOTE_TRUNCATED = "\n[... rest of the note omitted ...]";
+    private static final String SUMMARY_START = "--- EARLIER CONVERSATION (SUMMARY) ---\n";
+    private static final String SUMMARY_END = "--- EARLIER CONVERSATION END ---\n\n";
+    private static final String HISTORY_START = "--- CHAT HISTORY START ---\n";
+    private static final String HISTORY_END = "--- CHAT HISTORY END ---\n\n";
+    private static final String FOOTER = "Based on the note and the chat history but you can also search online "
+            + "and use other resources, answer the last user message.";
+    private static final int FIXED_CHARS = INSTRUCTIONS.length() + NOTE_START.length() + 3 + NOTE_END.length()
+            + NOTE_TRUNCATED.length() + SUMMARY_START.length() + SUMMARY_END.length()
+            + HISTORY_START.length() + HISTORY_END.length() + FOOTER.length();
+
+    private final int maxChars;
+    private final int noteMaxChars;
+    private final int historyWindow;
+    private final int summaryMaxChars;
+
+    public PromptContextBuilder(
+            @Value("${app.ai.prompt.max-tokens:8000}") int maxTokens,
+            @Value("${app.ai.prompt.note-share-percent:50}") int noteSharePercent,
+            @Value("${app.ai.prompt.history-window:20}") int historyWindow,
+            @Value("${app.ai.prompt.summary-max-chars:4000}") int summaryMaxChars) {
+        this.maxChars = maxTokens * CHARS_PER_TOKEN;
+        this.noteMaxChars = maxChars * noteSharePercent / 100;
+        this.historyWindow = historyWindow;
+        this.summaryMaxChars = summaryMaxChars;
+    }
+
+    /**
+     * @return How many recent messages to load for a turn
+     */
+    public int getHistoryWindow() {
+        return historyWindow;
+    }
+
+    /**
+     * @param note    The note; only title and content are read
+     * @param summary The rolling summary of older messages, may be null
+     * @param window  The most recent messages in chronological order, ending with the current question
+     */
+    public String build(Note note, String summary, List<AiChatMessage> window) {
+        String title = note.getTitle() != null ? note.getTitle() : "";
+        String content = note.getContent() != null ? note.getContent() : "";
+        boolean noteTruncated = content.length() > noteMaxChars;
+        if (noteTruncated) {
+            content = content.substring(0, noteMaxChars);
+        }
+        String rollingSummary = summary != null ? summary : "";
+
+        // Newest messages first, until the remaining budget is used up
+        int historyBudget = maxChars - FIXED_CHARS - title.length() - content.length() - rollingSummary.length();
+        int first = window.size();
+        int historyChars = 0;
+        for (int i = window.size() - 1; i >= 0; i--) {
+            int length = lineLength(window.get(i));
+            if (i < window.size() - 1 && historyChars + length > historyBudget) {
+                break;
+            }
+            historyChars += length;
+            first = i;
+        }
+
+        StringBuilder prompt = new StringBuilder(
+                FIXED_CHARS + title.length() + content.length() + rollingSummary.length() + historyChars);
+        prompt.append(INSTRUCTIONS);
+        prompt.append(NOTE_START).append(title).append("\n\n");
+        prompt.append(content);
+        if (noteTruncated) {
+            prompt.append(NOTE_TRUNCATED);
+        }
+        prompt.append('\n').append(NOTE_END);
+        if (!rollingSummary.isEmpty()) {
+            prompt.append(SUMMARY_START).append(rollingSummary);
+            if (rollingSummary.charAt(rollingSummary.length() - 1) != '\n') {
+                prompt.append('\n');
+            }
+            prompt.append(SUMMARY_END);
+        }
+        prompt.append(HISTORY_START);
+        for (int i = first; i < window.size(); i++) {
+            AiChatMessage message = window.get(i);
+            prompt.append(message.getRole().name()).append(": ").append(message.getContent()).append('\n');
+        }
+        prompt.append(HISTORY_END);
+        prompt.append(FOOTER);
+        return prompt.toString();
+    }
+
+    /**
+     * Appends one line per message (role and first sentence) to the summary and
+     * drops the oldest lines once it exceeds its maximum size.
+     *
+     * @param summary  The current summary, may be null
+     * @param messages Messages that left the window, in chronological order
+     * @return The new summary
+     */
+    public String fold(String summary, List<AiChatMessage> messages) {
+        StringBuilder folded = new StringBuilder(summary != null ? summary : "");
+        for (AiChatMessage message : messages) {
+            folded.append(message.getRole().name()).append(": ")
+                    .append(firstSentence(message.getContent())).append('\n');
+        }
+        int excess = folded.length() - summaryMaxChars;
+        if (excess > 0) {
+            int cut = folded.indexOf("\n", excess);
+            folded.delete(0, cut < 0 ? folded.length() : cut + 1);
+        }
+        return folded.toString();
+    }
+
+    private static int lineLength(AiChatMessage message) {
+        return message.getRole().name().length() + 2 + message.getContent().length() + 1;
+    }
+
+    private static String firstSentence(String content) {
+        if (content == null) {
+            return "";
+        }
+        int limit = Math.min(content.length(), SUMMARY_LINE_MAX_CHARS);
+        for (int i = 0; i < limit; i++) {
+            char c = content.charAt(i);
+            if (c == '\n') {
+                return content.substring(0, i).strip();
+            }
+            if ((c == '.' || c == '?' || c == '!')
+                    && (i + 1 == content.length() || Character.isWhitespace(content.charAt(i + 1)))) {
+                return content.substring(0, i + 1).strip();
+            }
+        }
+        String line = content.substring(0, limit).strip();
+        return limit < content.length() ? line + "..." : line;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.demo.service.ai;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+/**
+ * Offline stand-in for the model, enabled with app.ai.client=stub. The answer
+ * is picked from the canned responses (separated by '|') by a hash of the
+ * prompt, so the same prompt always gets the same answer. Each call sleeps for
+ * a latency drawn from the configured distribution:
+ * <ul>
+ * <li>FIXED: always the configured latency;</li>
+ * <li>UNIFORM: the latency +/- the spread, as a fraction of it;</li>
+ * <li>LOG_NORMAL: the latency is the median and the spread the sigma, which
+ * gives the long tail real model calls have.</li>
+ * </ul>
+ * Streamed answers are emitted word by word, spread over the same latency.
+ */
+@Service
+@ConditionalOnProperty(name = "app.ai.client", havingValue = "stub")
+public class StubLlmClient implements LlmClient {
+
+    public enum LatencyDistribution {
+        FIXED, UNIFORM, LOG_NORMAL
+    }
+
+    private final List<String> responses;
+    private final long latencyMillis;
+    private final LatencyDistribution distribution;
+    private final double spread;
+
+    public StubLlmClient(
+            @Value("${app.ai.stub.responses:This is a canned answer from the offline model stub.}") String responses,
+            @Value("${app.ai.stub.latency:800ms}") Duration latency,
+            @Value("${app.ai.stub.latency-distribution:LOG_NORMAL}") LatencyDistribution distribution,
+            @Value("${app.ai.stub.latency-spread:0.5}") double spread) {
+        this.responses = Arrays.stream(responses.split("\\|"))
+                .map(String::strip)
+                .filter(response -> !response.isEmpty())
+                .toList();
+        if (this.responses.isEmpty()) {
+            throw new IllegalArgumentException("app.ai.stub.responses must contain at least one response");
+        }
+        this.latencyMillis = latency.toMillis();
+        this.distribution = distribution;
+        this.spread = spread;
+    }
+
+    @Override
+    public String generate(String prompt) {
+        pause(nextLatencyMillis(ThreadLocalRandom.current()));
+        return answer(prompt);
+    }
+
+    @Override
+    public String stream(String prompt, Consumer<String> onChunk) {
+        String answer = answer(prompt);
+        String[] words = answer.split(" ");
+        long latency = nextLatencyMillis(ThreadLocalRandom.current());
+        for (int i = 0; i < words.length; i++) {
+            pause(latency / words.length);
+            onChunk.accept(i == 0 ? words[i] : " " + words[i]);
+        }
+        return answer;
+    }
+
+    private String answer(String prompt) {
+        return responses.get(Math.floorMod(prompt.hashCode(), responses.size()));
+    }
+
+    long nextLatencyMillis(Random random) {
+        double millis = switch (distribution) {
+            case FIXED -> latencyMillis;
+            case UNIFORM -> latencyMillis * (1 + spread * (2 * random.nextDouble() - 1));
+            case LOG_NORMAL -> latencyMillis * Math.exp(spread * random.nextGaussian());
+        };
+        return Math.max(0, Math.round(millis));
+    }
+
+    private static void pause(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while simulating model latency", e);
+        }
+    }
+}
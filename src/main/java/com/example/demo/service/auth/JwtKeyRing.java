@@ -0,0 +1,121 @@
+package com.example.demo.service.auth;
+
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+
+import javax.crypto.SecretKey;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable set of HMAC keys, indexed by key id (the JWT "kid" header).
+ * New tokens are signed with the active key; every key in the ring is accepted
+ * for verification, so tokens signed before a rotation stay valid until the old
+ * key is retired. Keys are decoded once, when the ring is built.
+ * A rotation is made durable in configuration: add security.jwt.keys.&lt;new-kid&gt;,
+ * point security.jwt.active-kid at it and, one token lifetime later, remove the
+ * old entry. Every instance then loads the same ring on startup.
+ */
+public final class JwtKeyRing {
+
+    /** Key id of the configured security.jwt.secret-key, also used for tokens without a kid header. */
+    public static final String DEFAULT_KEY_ID = "default";
+
+    private final String activeKeyId;
+    private final Map<String, SecretKey> keys;
+
+    private JwtKeyRing(String activeKeyId, Map<String, SecretKey> keys) {
+        this.activeKeyId = activeKeyId;
+        this.keys = Collections.unmodifiableMap(keys);
+    }
+
+    public static JwtKeyRing of(String keyId, String base64Secret) {
+        Map<String, SecretKey> keys = new LinkedHashMap<>();
+        keys.put(keyId, decode(base64Secret));
+        return new JwtKeyRing(keyId, keys);
+    }
+
+    /**
+     * Builds the ring from configuration: every security.jwt.keys.&lt;kid&gt; entry,
+     * plus security.jwt.secret-key under {@link #DEFAULT_KEY_ID} if it is set.
+     *
+     * @param secrets       Base64 encoded secrets by key id
+     * @param activeKeyId   The key id new tokens are signed with; may be blank if
+     *                      only secret-key or a single key is configured
+     * @param defaultSecret The legacy single secret, may be blank
+     * @throws IllegalStateException if no key is configured or the active key id is unknown
+     */
+    public static JwtKeyRing fromConfiguration(Map<String, String> secrets, String activeKeyId,
+            String defaultSecret) {
+        Map<String, SecretKey> keys = new LinkedHashMap<>();
+        if (defaultSecret != null && !defaultSecret.isBlank()) {
+            keys.put(DEFAULT_KEY_ID, decode(defaultSecret));
+        }
+        secrets.forEach((keyId, secret) -> keys.put(keyId, decode(secret)));
+        if (keys.isEmpty()) {
+            throw new IllegalStateException("No JWT key configured, set security.jwt.keys.<kid> or security.jwt.secret-key");
+        }
+
+        String active = activeKeyId;
+        if (active == null || active.isBlank()) {
+            if (keys.size() != 1) {
+                throw new IllegalStateException("Several JWT keys are configured, set security.jwt.active-kid");
+            }
+            active = keys.keySet().iterator().next();
+        }
+        if (!keys.containsKey(active)) {
+            throw new IllegalStateException("security.jwt.active-kid '" + active + "' is not a configured key");
+        }
+        return new JwtKeyRing(active, keys);
+    }
+
+    /**
+     * @return A new ring that signs with the given key and still verifies with the current ones
+     */
+    public JwtKeyRing withActiveKey(String keyId, String base64Secret) {
+        if (keys.containsKey(keyId)) {
+            throw new IllegalArgumentException("Key id already in use: " + keyId);
+        }
+        Map<String, SecretKey> next = new LinkedHashMap<>(keys);
+        next.put(keyId, decode(base64Secret));
+        return new JwtKeyRing(keyId, next);
+    }
+
+    /**
+     * @return A new ring without the given verification key
+     */
+    public JwtKeyRing without(String keyId) {
+        if (keyId.equals(activeKeyId)) {
+            throw new IllegalArgumentException("Cannot retire the active signing key: " + keyId);
+        }
+        Map<String, SecretKey> next = new LinkedHashMap<>(keys);
+        next.remove(keyId);
+        return new JwtKeyRing(activeKeyId, next);
+    }
+
+    public String getActiveKeyId() {
+        return activeKeyId;
+    }
+
+    public SecretKey getActiveKey() {
+        return keys.get(activeKeyId);
+    }
+
+    /**
+     * @param keyId The kid header of a token, or null for tokens issued before key ids were used
+     * @return The verification key, or null if the key id is unknown
+     */
+    public SecretKey getVerificationKey(String keyId) {
+        return keys.get(keyId != null ? keyId : DEFAULT_KEY_ID);
+    }
+
+    public Map<String, SecretKey> getKeys() {
+        return keys;
+    }
+
+    private static SecretKey decode(String base64Secret) {
+        // Rejects secrets shorter than 256 bits
+        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(base64Secret));
+    }
+}
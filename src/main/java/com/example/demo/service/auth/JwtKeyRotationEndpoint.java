@@ -0,0 +1,46 @@
+package com.example.demo.service.auth;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.jmx.annotation.JmxEndpoint;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Operational shortcut to rotate the JWT signing key without a restart. Exposed
+ * over JMX only (spring.jmx.enabled=true), so that secrets never travel over the
+ * public HTTP API. Changes are per instance and in memory only: the key ring is
+ * loaded from security.jwt.keys and security.jwt.active-kid, which must be
+ * updated as well for the rotation to survive a restart and reach every instance.
+ */
+@Component
+@JmxEndpoint(id = "jwtKeys")
+public class JwtKeyRotationEndpoint {
+
+    private final JwtService jwtService;
+
+    public JwtKeyRotationEndpoint(JwtService jwtService) {
+        this.jwtService = jwtService;
+    }
+
+    @ReadOperation
+    public Map<String, Object> keys() {
+        JwtKeyRing ring = jwtService.getKeyRing();
+        return Map.of(
+                "active", ring.getActiveKeyId(),
+                "keys", List.copyOf(ring.getKeys().keySet()));
+    }
+
+    @WriteOperation
+    public void rotate(String keyId, String secret) {
+        jwtService.rotateKey(keyId, secret);
+    }
+
+    @DeleteOperation
+    public void retire(String keyId) {
+        jwtService.retireKey(keyId);
+    }
+}
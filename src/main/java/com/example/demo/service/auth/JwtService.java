@@ -1,26 +1,87 @@
 package com.example.demo.service.auth;
 
+import com.example.demo.model.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.security.SignatureException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
+import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 
+/**
+ * Issues and verifies JWTs. Keys are loaded from configuration and decoded once into
+ * a {@link JwtKeyRing}, and the parser is built once; it picks the verification key
+ * from the token's kid header through the current ring, so a key rotation is a
+ * single reference swap.
+ */
+@Slf4j
 @Service
 public class JwtService {
-    @Value("${security.jwt.secret-key}")
-    private String secretKey;
+    /** Claims that let the authentication filter build the principal without a database lookup. */
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String ENABLED_CLAIM = "enabled";
 
-    @Value("${security.jwt.expiration-time}")
-    private long jwtExpiration;
+    private final AtomicReference<JwtKeyRing> keyRing;
+    private final JwtParser parser;
+    private final long jwtExpiration;
+
+    /**
+     * Loads the key ring from security.jwt.keys.&lt;kid&gt;, security.jwt.active-kid
+     * and the legacy security.jwt.secret-key, see
+     * {@link JwtKeyRing#fromConfiguration(Map, String, String)}.
+     */
+    @Autowired
+    public JwtService(Environment environment,
+            @Value("${security.jwt.secret-key:}") String secretKey,
+            @Value("${security.jwt.active-kid:}") String activeKeyId,
+            @Value("${security.jwt.expiration-time}") long jwtExpiration) {
+        this(JwtKeyRing.fromConfiguration(
+                Binder.get(environment)
+                        .bind("security.jwt.keys", Bindable.mapOf(String.class, String.class))
+                        .orElseGet(Map::of),
+                activeKeyId, secretKey), jwtExpiration);
+    }
+
+    /**
+     * A service with a single key, e.g. for benchmarks.
+     */
+    public JwtService(String secretKey, long jwtExpiration) {
+        this(JwtKeyRing.of(JwtKeyRing.DEFAULT_KEY_ID, secretKey), jwtExpiration);
+    }
+
+    public JwtService(JwtKeyRing initialKeyRing, long jwtExpiration) {
+        this.keyRing = new AtomicReference<>(initialKeyRing);
+        this.jwtExpiration = jwtExpiration;
+        // JwtParser is immutable and thread-safe
+        this.parser = Jwts.parser()
+                .keyLocator(new LocatorAdapter<Key>() {
+                    @Override
+                    protected Key locate(JwsHeader header) {
+                        SecretKey key = keyRing.get().getVerificationKey(header.getKeyId());
+                        if (key == null) {
+                            throw new SignatureException("Unknown signing key id: " + header.getKeyId());
+                        }
+                        return key;
+                    }
+                })
+                .build();
+    }
 
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
@@ -35,6 +96,17 @@ public class JwtService {
         return generateToken(new HashMap<>(), userDetails);
     }
 
+    /**
+     * Generates a token that also carries the user's id and enabled state, so
+     * that it can be authenticated in stateless mode.
+     */
+    public String generateToken(User user) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(USER_ID_CLAIM, user.getId());
+        claims.put(ENABLED_CLAIM, user.isEnabled());
+        return generateToken(claims, user);
+    }
+
     public String generateToken(Map<String, Object> extraClaims, UserDetails userDetails) {
         return buildToken(extraClaims, userDetails, jwtExpiration);
     }
@@ -48,13 +120,15 @@ public class JwtService {
             UserDetails userDetails,
             long expiration
     ) {
+        JwtKeyRing ring = keyRing.get();
         return Jwts
                 .builder()
+                .header().keyId(ring.getActiveKeyId()).and()
                 .claims(extraClaims)
                 .subject(userDetails.getUsername())
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSignInKey())
+                .signWith(ring.getActiveKey())
                 .compact();
     }
 
@@ -63,6 +137,40 @@ public class JwtService {
         return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
     }
 
+    /**
+     * Same check as isTokenValid(String, UserDetails), on claims that were already
+     * parsed, so the signature is not verified again.
+     */
+    public boolean isTokenValid(Claims claims, UserDetails userDetails) {
+        return userDetails.getUsername().equals(claims.getSubject())
+                && claims.getExpiration() != null
+                && claims.getExpiration().after(new Date());
+    }
+
+    /**
+     * Verifies the token signature and returns its claims. This is the only
+     * signature verification the authentication filter needs per request.
+     *
+     * @throws io.jsonwebtoken.JwtException if the token is malformed, forged or expired
+     */
+    public Claims parseClaims(String token) {
+        return extractAllClaims(token);
+    }
+
+    /**
+     * Builds the request principal from the identity claims of a token.
+     *
+     * @return The principal, or null if the token predates the identity claims
+     */
+    public AuthenticatedUser toAuthenticatedUser(Claims claims) {
+        Object userId = claims.get(USER_ID_CLAIM);
+        Object enabled = claims.get(ENABLED_CLAIM);
+        if (!(userId instanceof Number id) || !(enabled instanceof Boolean isEnabled) || claims.getSubject() == null) {
+            return null;
+        }
+        return new AuthenticatedUser(id.longValue(), claims.getSubject(), isEnabled);
+    }
+
     private boolean isTokenExpired(String token) {
         return extractExpiration(token).before(new Date());
     }
@@ -72,16 +180,35 @@ public class JwtService {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts
-                .parser()
-                .verifyWith(getSignInKey())
-                .build()
+        return parser
                 .parseSignedClaims(token)
                 .getPayload();
     }
 
-    private SecretKey getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+    public JwtKeyRing getKeyRing() {
+        return keyRing.get();
+    }
+
+    /**
+     * Makes a new key the signing key. Tokens signed with the previous keys are
+     * still accepted until those keys are retired, which should happen no earlier
+     * than one token lifetime after the rotation.
+     * Only this instance's in-memory ring changes; the key must also be added to
+     * security.jwt.keys, or it is gone after a restart.
+     *
+     * @param keyId        The kid written into new tokens
+     * @param base64Secret The Base64 encoded HMAC secret, at least 256 bits
+     */
+    public void rotateKey(String keyId, String base64Secret) {
+        keyRing.updateAndGet(ring -> ring.withActiveKey(keyId, base64Secret));
+        log.info("JWT signing key rotated to '{}'", keyId);
+    }
+
+    /**
+     * Stops accepting tokens signed with the given key.
+     */
+    public void retireKey(String keyId) {
+        keyRing.updateAndGet(ring -> ring.without(keyId));
+        log.info("JWT key '{}' retired", keyId);
     }
 }
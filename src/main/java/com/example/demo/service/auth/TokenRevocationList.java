@@ -0,0 +1,49 @@
+package com.example.demo.service.auth;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+
+/**
+ * Revocation check for stateless JWT authentication.
+ * Instead of tracking individual tokens it stores, per user, the instant before
+ * which all tokens of that user are revoked (a token version expressed as a
+ * timestamp). Entries only need to outlive the tokens they revoke, so they expire
+ * after the token lifetime and the structure stays small.
+ * The state is local to this instance.
+ */
+@Component
+public class TokenRevocationList {
+
+    private final Cache<Long, Instant> revokedBefore;
+
+    public TokenRevocationList(@Value("${security.jwt.expiration-time}") long jwtExpiration) {
+        this.revokedBefore = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(jwtExpiration))
+                .build();
+    }
+
+    /**
+     * Revokes every token issued to the user up to now.
+     *
+     * @param userId The ID of the user
+     */
+    public void revokeAll(Long userId) {
+        revokedBefore.put(userId, Instant.now());
+    }
+
+    /**
+     * @param userId   The uid claim of the token
+     * @param issuedAt The iat claim of the token
+     * @return true if the token was issued before the user's tokens were revoked
+     */
+    public boolean isRevoked(Long userId, Date issuedAt) {
+        Instant cutoff = revokedBefore.getIfPresent(userId);
+        return cutoff != null && (issuedAt == null || !issuedAt.toInstant().isAfter(cutoff));
+    }
+}
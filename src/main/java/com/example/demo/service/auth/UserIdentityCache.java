@@ -0,0 +1,61 @@
+package com.example.demo.service.auth;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Bounded, TTL-based cache of {@link AuthenticatedUser} principals keyed by
+ * username. It saves the users lookup that authentication and the services
+ * would otherwise do on every request.
+ * Entries are evicted by UserIdentityCacheInvalidator whenever a User row
+ * changes. Hit, miss and eviction counts are published as the "userIdentity"
+ * cache metrics.
+ */
+@Slf4j
+@Component
+public class UserIdentityCache {
+
+    private final Cache<String, AuthenticatedUser> cache;
+
+    public UserIdentityCache(MeterRegistry meterRegistry,
+            @Value("${app.auth.user-cache.ttl:5m}") Duration ttl,
+            @Value("${app.auth.user-cache.max-size:10000}") long maxSize) {
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .recordStats()
+                .removalListener((String username, AuthenticatedUser user, RemovalCause cause) -> {
+                    if (cause.wasEvicted()) {
+                        log.debug("Evicted cached identity of {} ({})", username, cause);
+                    }
+                })
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "userIdentity");
+    }
+
+    public AuthenticatedUser get(String username, Function<String, AuthenticatedUser> loader) {
+        return cache.get(username, loader);
+    }
+
+    public void evict(String username) {
+        cache.invalidate(username);
+    }
+
+    /**
+     * Evicts every entry of the given user, whatever username it is cached under.
+     *
+     * @param userId The ID of the user whose row changed
+     */
+    public void evictUserId(Long userId) {
+        cache.asMap().values().removeIf(user -> user.id().equals(userId));
+    }
+}
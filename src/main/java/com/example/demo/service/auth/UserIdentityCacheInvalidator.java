@@ -0,0 +1,47 @@
+package com.example.demo.service.auth;
+
+import com.example.demo.model.User;
+import com.example.demo.service.TransactionHooks;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA entity listener that keeps {@link UserIdentityCache} consistent with the
+ * users table: verification, profile changes and disabling an account all go
+ * through a User update. The entry is dropped right away and again after commit,
+ * so that a concurrent request cannot re-cache the old state.
+ * Disabling or deleting an account also revokes its outstanding tokens, which
+ * stateless authentication would otherwise keep accepting until they expire.
+ */
+@Component
+public class UserIdentityCacheInvalidator {
+
+    private final UserIdentityCache userIdentityCache;
+    private final TokenRevocationList tokenRevocationList;
+
+    public UserIdentityCacheInvalidator(UserIdentityCache userIdentityCache,
+            TokenRevocationList tokenRevocationList) {
+        this.userIdentityCache = userIdentityCache;
+        this.tokenRevocationList = tokenRevocationList;
+    }
+
+    @PostUpdate
+    public void userUpdated(User user) {
+        evict(user.getId());
+        if (!user.isEnabled()) {
+            tokenRevocationList.revokeAll(user.getId());
+        }
+    }
+
+    @PostRemove
+    public void userRemoved(User user) {
+        evict(user.getId());
+        tokenRevocationList.revokeAll(user.getId());
+    }
+
+    private void evict(Long userId) {
+        userIdentityCache.evictUserId(userId);
+        TransactionHooks.afterCommit(() -> userIdentityCache.evictUserId(userId));
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.demo.controller;
+
+import com.example.demo.dto.NoteCreateRequestDto;
+import com.example.demo.model.User;
+import com.example.demo.service.GroupService;
+import com.example.demo.service.NoteService;
+import com.example.demo.support.PostgresIntegrationTest;
+import com.example.demo.support.QueryBudget;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The group listings must cost the same handful of statements however many
+ * groups, members, tasks and notes the user has.
+ */
+class GroupControllerQueryBudgetTest extends PostgresIntegrationTest {
+
+	private static final int GROUPS = 3;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private GroupService groupService;
+
+	@Autowired
+	private NoteService noteService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private User owner;
+
+	@BeforeEach
+	void createGroups() {
+		owner = createUser();
+		for (int g = 0; g < GROUPS; g++) {
+			Long groupId = groupService.createGroup("Group " + g, owner.getUsername()).getId();
+			User member = createUser();
+			groupService.joinGroup(groupId, member.getUsername());
+			groupService.createGroupTask(groupId, "Read chapter " + g, owner.getUsername());
+			groupService.createGroupTask(groupId, "Write summary " + g, owner.getUsername());
+			for (int n = 0; n < 2; n++) {
+				Long noteId = createNoteInGroup(groupId, "Note " + n + " of group " + g);
+				jdbcTemplate.update("INSERT INTO note_collaborators (note_id, user_id) VALUES (?, ?)",
+						noteId, member.getId());
+			}
+		}
+	}
+
+	@Test
+	void listingGroupsBatchFetchesTheGroupTree() throws Exception {
+		// User lookup, groups with owners, then one batch each for members, tasks, notes and collaborators
+		mockMvc.perform(get("/groups").with(user(owner)))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$", hasSize(GROUPS)))
+				.andExpect(jsonPath("$[0].members", hasSize(2)))
+				.andExpect(jsonPath("$[0].notes[0].participantCount").value(2))
+				.andExpect(QueryBudget.statementsAtMost(6));
+	}
+
+	@Test
+	void groupSummariesAreASingleQuery() throws Exception {
+		mockMvc.perform(get("/groups/summary").with(user(owner)))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$", hasSize(GROUPS)))
+				.andExpect(jsonPath("$[0].noteCount").value(2))
+				.andExpect(QueryBudget.statementsAtMost(2))
+				.andExpect(QueryBudget.entityLoadsAtMost(0));
+	}
+
+	private Long createNoteInGroup(Long groupId, String title) {
+		return noteService.createNote(new NoteCreateRequestDto(title, "Shared notes", groupId), owner.getUsername()).id();
+	}
+}
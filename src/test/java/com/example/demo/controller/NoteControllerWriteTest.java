@@ -0,0 +1,81 @@
+package com.example.demo.controller;
+
+import com.example.demo.dto.NoteCreateRequestDto;
+import com.example.demo.model.User;
+import com.example.demo.service.NoteService;
+import com.example.demo.support.PostgresIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Note writes bind request DTOs, so server-managed fields in the body are ignored.
+ */
+class NoteControllerWriteTest extends PostgresIntegrationTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private NoteService noteService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void createIgnoresServerManagedFields() throws Exception {
+		User victim = createUser();
+		User attacker = createUser();
+		Long victimNoteId = noteService.createNote(new NoteCreateRequestDto("Private", "Secret", null),
+				victim.getUsername()).id();
+
+		mockMvc.perform(post("/note").with(user(attacker))
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("""
+								{"id": %d, "version": 0, "owner": {"id": %d}, "deletedAt": "2020-01-01T00:00:00",
+								 "title": "Mine", "content": "Overwritten?"}
+								""".formatted(victimNoteId, attacker.getId())))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.id").value(not(victimNoteId.intValue())))
+				.andExpect(jsonPath("$.ownerId").value(attacker.getId().intValue()));
+
+		Map<String, Object> victimNote = jdbcTemplate.queryForMap(
+				"SELECT user_id, title, content FROM notes WHERE id = ?", victimNoteId);
+		assertThat(victimNote).containsEntry("user_id", victim.getId())
+				.containsEntry("title", "Private")
+				.containsEntry("content", "Secret");
+		assertThat(jdbcTemplate.queryForObject(
+				"SELECT count(*) FROM notes WHERE user_id = ? AND deleted_at IS NULL", Integer.class, attacker.getId()))
+				.isEqualTo(1);
+	}
+
+	@Test
+	void updateOnlyChangesTitleAndContent() throws Exception {
+		User owner = createUser();
+		Long noteId = noteService.createNote(new NoteCreateRequestDto("Draft", "First", null),
+				owner.getUsername()).id();
+
+		mockMvc.perform(patch("/note/{id}", noteId).with(user(owner))
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("""
+								{"title": "Final", "content": "Second", "deletedAt": "2020-01-01T00:00:00"}
+								"""))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.title").value("Final"));
+
+		assertThat(jdbcTemplate.queryForObject("SELECT deleted_at IS NULL FROM notes WHERE id = ?", Boolean.class,
+				noteId)).isTrue();
+	}
+}
@@ -0,0 +1,41 @@
+package com.example.demo.search;
+
+import com.example.demo.model.Note;
+import com.example.demo.model.User;
+import com.example.demo.repository.NoteRepository;
+import com.example.demo.support.PostgresIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PostgresSnippetEscapingIntegrationTest extends PostgresIntegrationTest {
+
+	@Autowired
+	private NoteSearchEngine noteSearchEngine;
+
+	@Autowired
+	private NoteRepository noteRepository;
+
+	@Test
+	void onlyTheHighlightIsMarkup() {
+		User owner = createUser();
+		Note note = new Note();
+		note.setTitle("Payload");
+		note.setContent("<img src=x onerror=alert(1)> calculus & \"limits\" it's");
+		note.setOwner(owner);
+		noteRepository.save(note);
+
+		List<NoteSearchHit> hits = noteSearchEngine.search(owner.getId(), "calculus", 5, 0);
+
+		assertThat(hits).singleElement().satisfies(hit -> assertThat(hit.snippet())
+				.contains("<mark>calculus</mark>")
+				.contains("&lt;img src=x onerror=alert(1)&gt;")
+				.contains("&amp;")
+				.contains("&quot;limits&quot;")
+				.contains("it&#39;s")
+				.doesNotContain("<img"));
+	}
+}
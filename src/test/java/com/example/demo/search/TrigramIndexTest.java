@@ -0,0 +1,75 @@
+package com.example.demo.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrigramIndexTest {
+
+	private static final double MIN_SIMILARITY = 0.4;
+
+	@Test
+	void findsNotesByTitleAndContentDespiteTypos() {
+		TrigramIndex index = new TrigramIndex();
+		LocalDateTime now = LocalDateTime.now();
+		index.put(1L, "Linear algebra", "Eigenvalues and eigenvectors", now);
+		index.put(2L, "Shopping list", "Milk, eggs, bread", now);
+
+		assertThat(ids(index.search("algebar", 10, 0, MIN_SIMILARITY))).containsExactly(1L);
+		assertThat(ids(index.search("eigenvector", 10, 0, MIN_SIMILARITY))).containsExactly(1L);
+		assertThat(ids(index.search("bread", 10, 0, MIN_SIMILARITY))).containsExactly(2L);
+	}
+
+	@Test
+	void appliesUpdatesAndRemovalsIncrementally() {
+		TrigramIndex index = new TrigramIndex();
+		LocalDateTime now = LocalDateTime.now();
+		index.put(1L, "Physics", "Newton's laws", now);
+		index.put(2L, "Chemistry", "Periodic table", now);
+
+		index.put(1L, "Physics", "Maxwell equations", now);
+		index.remove(2L);
+		index.put(3L, "Biology", "Periodic table of cells", now);
+
+		assertThat(ids(index.search("newton", 10, 0, MIN_SIMILARITY))).isEmpty();
+		assertThat(ids(index.search("maxwell", 10, 0, MIN_SIMILARITY))).containsExactly(1L);
+		assertThat(ids(index.search("periodic", 10, 0, MIN_SIMILARITY))).containsExactly(3L);
+		assertThat(index.size()).isEqualTo(2);
+	}
+
+	@Test
+	void ranksTitleMatchesFirstAndHighlightsSnippets() {
+		TrigramIndex index = new TrigramIndex();
+		LocalDateTime now = LocalDateTime.now();
+		index.put(1L, "Notes", "Some thoughts about calculus", now);
+		index.put(2L, "Calculus", "Limits and derivatives", now);
+
+		List<NoteSearchHit> hits = index.search("calculus", 10, 0, MIN_SIMILARITY);
+
+		assertThat(ids(hits)).containsExactly(2L, 1L);
+		assertThat(hits.get(1).snippet()).contains("<mark>calculus</mark>");
+	}
+
+	@Test
+	void escapesTheContentAroundTheHighlight() {
+		TrigramIndex index = new TrigramIndex();
+		LocalDateTime now = LocalDateTime.now();
+		index.put(1L, "Notes", "<img src=x onerror=alert(1)> calculus & \"limits\"", now);
+		index.put(2L, "Unrelated", "<script>alert('x')</script>", now);
+
+		List<NoteSearchHit> hits = index.search("calculus", 10, 0, MIN_SIMILARITY);
+
+		assertThat(hits.get(0).snippet()).isEqualTo(
+				"&lt;img src=x onerror=alert(1)&gt; <mark>calculus</mark> &amp; &quot;limits&quot;");
+		// Without an exact match the beginning of the content is escaped as well
+		assertThat(index.search("unrelated", 10, 0, MIN_SIMILARITY).get(0).snippet())
+				.isEqualTo("&lt;script&gt;alert(&#39;x&#39;)&lt;/script&gt;");
+	}
+
+	private static List<Long> ids(List<NoteSearchHit> hits) {
+		return hits.stream().map(NoteSearchHit::id).toList();
+	}
+}
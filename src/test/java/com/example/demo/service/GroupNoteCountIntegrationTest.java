@@ -0,0 +1,87 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.NoteCreateRequestDto;
+import com.example.demo.model.User;
+import com.example.demo.support.PostgresIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.access.AccessDeniedException;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GroupNoteCountIntegrationTest extends PostgresIntegrationTest {
+
+	@Autowired
+	private NoteService noteService;
+
+	@Autowired
+	private TrashService trashService;
+
+	@Autowired
+	private GroupService groupService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void createDeleteAndTrashKeepTheNoteCounterInStep() {
+		User owner = createUser();
+		Long groupId = groupService.createGroup("Study group", owner.getUsername()).getId();
+
+		Long first = createNoteInGroup(groupId, owner);
+		Long second = createNoteInGroup(groupId, owner);
+		Long third = createNoteInGroup(groupId, owner);
+		Long fourth = createNoteInGroup(groupId, owner);
+		assertThat(noteCount(groupId)).isEqualTo(4).isEqualTo(actualNotes(groupId));
+
+		noteService.deleteNote(first, owner.getUsername());
+		assertThat(noteCount(groupId)).isEqualTo(3).isEqualTo(actualNotes(groupId));
+
+		trashService.moveToTrash(second, owner.getUsername());
+		assertThat(noteCount(groupId)).isEqualTo(2).isEqualTo(actualNotes(groupId));
+
+		trashService.moveToTrash(List.of(third, fourth), owner.getUsername());
+		assertThat(noteCount(groupId)).isZero().isEqualTo(actualNotes(groupId));
+	}
+
+	@Test
+	void notesOutsideGroupsLeaveTheCounterAlone() {
+		User owner = createUser();
+		Long groupId = groupService.createGroup("Empty group", owner.getUsername()).getId();
+
+		Long noteId = noteService.createNote(new NoteCreateRequestDto("Personal", "Not in a group", null),
+				owner.getUsername()).id();
+		trashService.moveToTrash(noteId, owner.getUsername());
+
+		assertThat(noteCount(groupId)).isZero();
+	}
+
+	@Test
+	void outsidersCannotAddNotesToAGroup() {
+		User owner = createUser();
+		User outsider = createUser();
+		Long groupId = groupService.createGroup("Private group", owner.getUsername()).getId();
+		createNoteInGroup(groupId, owner);
+
+		assertThatThrownBy(() -> createNoteInGroup(groupId, outsider)).isInstanceOf(AccessDeniedException.class);
+		assertThat(noteCount(groupId)).isEqualTo(1).isEqualTo(actualNotes(groupId));
+	}
+
+	private Long createNoteInGroup(Long groupId, User owner) {
+		return noteService.createNote(new NoteCreateRequestDto("Group note", "Shared with the group", groupId),
+				owner.getUsername()).id();
+	}
+
+	private int noteCount(Long groupId) {
+		return jdbcTemplate.queryForObject("SELECT note_count FROM groups WHERE id = ?", Integer.class, groupId);
+	}
+
+	private int actualNotes(Long groupId) {
+		return jdbcTemplate.queryForObject(
+				"SELECT count(*) FROM notes WHERE group_id = ? AND deleted_at IS NULL", Integer.class, groupId);
+	}
+}
@@ -0,0 +1,222 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.NoteDetailsDto;
+import com.example.demo.repository.projection.NoteIndexSourceView;
+import com.example.demo.search.NoteSearchEngine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class NoteWriteBufferTest {
+
+	private static final Long OWNER = 7L;
+
+	private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+	private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+	private final NoteSearchEngine noteSearchEngine = mock(NoteSearchEngine.class);
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final List<List<NoteDetailsDto>> batches = new ArrayList<>();
+	// Runs inside the batch write, i.e. while the batch is in flight
+	private Consumer<List<NoteDetailsDto>> duringWrite = batch -> {
+	};
+	// Ids of notes whose row is gone by the time the batch runs
+	private final Set<Long> deletedRows = new HashSet<>();
+	private NoteWriteBuffer buffer;
+
+	@BeforeEach
+	void setUp() {
+		when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+		doAnswer(invocation -> {
+			List<NoteDetailsDto> batch = List.copyOf(invocation.<Collection<NoteDetailsDto>>getArgument(1));
+			duringWrite.accept(batch);
+			batches.add(batch);
+			return new int[][] { batch.stream().mapToInt(note -> deletedRows.contains(note.id()) ? 0 : 1).toArray() };
+		}).when(jdbcTemplate).batchUpdate(anyString(), anyCollection(), anyInt(), any());
+		buffer = buffer(Duration.ZERO, 100);
+	}
+
+	@Test
+	void coalescesSavesIntoOneRowWithTheLatestContent() {
+		NoteDetailsDto stored = stored(1L, 3);
+		assertThat(buffer.write(stored, "Title", "a").version()).isEqualTo(4);
+		assertThat(buffer.write(stored, "Title", "ab").version()).isEqualTo(5);
+		NoteDetailsDto last = buffer.write(buffer.get(1L).orElseThrow(), "Title", "abc");
+		assertThat(last.version()).isEqualTo(6);
+
+		buffer.flushDue();
+
+		assertThat(batches).hasSize(1);
+		assertThat(batches.get(0)).singleElement().satisfies(note -> {
+			assertThat(note.content()).isEqualTo("abc");
+			assertThat(note.version()).isEqualTo(6);
+		});
+		assertThat(buffer.get(1L)).isEmpty();
+	}
+
+	@Test
+	void waitsForTheCoalescingWindow() {
+		buffer = buffer(Duration.ofHours(1), 100);
+		buffer.write(stored(1L, 0), "Title", "draft");
+
+		buffer.flushDue();
+
+		assertThat(batches).isEmpty();
+		assertThat(buffer.get(1L)).isPresent();
+	}
+
+	@Test
+	void servesANoteWhileItIsInFlight() {
+		buffer.write(stored(1L, 0), "Title", "in flight");
+		List<String> seenDuringWrite = new ArrayList<>();
+		duringWrite = batch -> seenDuringWrite.add(buffer.get(1L).map(NoteDetailsDto::content).orElse(null));
+
+		buffer.flush(1L);
+
+		assertThat(seenDuringWrite).containsExactly("in flight");
+		assertThat(buffer.get(1L)).isEmpty();
+	}
+
+	@Test
+	void requeuesAFailedBatch() {
+		buffer.write(stored(1L, 0), "Title", "unsaved");
+		duringWrite = batch -> {
+			throw new DataAccessResourceFailureException("connection lost");
+		};
+
+		buffer.flush(1L);
+
+		assertThat(buffer.get(1L)).map(NoteDetailsDto::content).contains("unsaved");
+
+		duringWrite = batch -> {
+		};
+		buffer.flush(1L);
+		assertThat(batches).singleElement().satisfies(batch -> assertThat(batch.get(0).content()).isEqualTo("unsaved"));
+	}
+
+	@Test
+	void aRequeuedBatchDoesNotClobberANewerSave() {
+		NoteDetailsDto stored = stored(1L, 0);
+		buffer.write(stored, "Title", "older");
+		duringWrite = batch -> {
+			// Saved again while the older save is being written, then the write fails
+			buffer.write(stored, "Title", "newer");
+			throw new DataAccessResourceFailureException("connection lost");
+		};
+
+		buffer.flush(1L);
+
+		NoteDetailsDto pending = buffer.get(1L).orElseThrow();
+		assertThat(pending.content()).isEqualTo("newer");
+		assertThat(pending.version()).isEqualTo(2);
+	}
+
+	@Test
+	void flushWritesTheHighestVersion() throws Exception {
+		NoteDetailsDto stored = stored(1L, 3);
+		buffer.write(stored, "Title", "first");
+		duringWrite = batch -> {
+			if (batches.isEmpty()) {
+				// A save based on the stale stored note must still go past the in-flight version
+				assertThat(buffer.write(stored, "Title", "second").version()).isEqualTo(5);
+			}
+		};
+		buffer.flush(1L);
+		// The database moved on meanwhile, e.g. a delta update
+		assertThat(buffer.write(stored(1L, 9), "Title", "third").version()).isEqualTo(10);
+
+		PreparedStatement statement = mock(PreparedStatement.class);
+		doAnswer(invocation -> {
+			ParameterizedPreparedStatementSetter<NoteDetailsDto> setter = invocation.getArgument(3);
+			for (NoteDetailsDto note : invocation.<Collection<NoteDetailsDto>>getArgument(1)) {
+				setter.setValues(statement, note);
+			}
+			return new int[0][];
+		}).when(jdbcTemplate).batchUpdate(anyString(), anyCollection(), anyInt(), any());
+		buffer.flush(1L);
+
+		verify(statement).setString(2, "third");
+		verify(statement).setLong(4, 10L);
+	}
+
+	@Test
+	void dropsAndDoesNotIndexASaveOfANoteDeletedBeforeTheFlush() {
+		buffer.write(stored(1L, 0), "Title", "kept");
+		buffer.write(stored(2L, 0), "Title", "of a deleted note");
+		deletedRows.add(2L);
+
+		buffer.flushDue();
+
+		assertThat(batches).singleElement().satisfies(batch -> assertThat(batch).hasSize(2));
+		// Not requeued: the note no longer exists
+		assertThat(buffer.get(2L)).isEmpty();
+		assertThat(meterRegistry.get("app.notes.write-behind.dropped").counter().count()).isEqualTo(1);
+		assertThat(meterRegistry.get("app.notes.write-behind.flushed").counter().count()).isEqualTo(1);
+		@SuppressWarnings("unchecked")
+		ArgumentCaptor<List<NoteIndexSourceView>> indexed = ArgumentCaptor.forClass(List.class);
+		verify(noteSearchEngine).notesSaved(eq(OWNER), indexed.capture());
+		assertThat(indexed.getValue()).extracting(NoteIndexSourceView::getId).containsExactly(1L);
+	}
+
+	@Test
+	void flushesEverythingWhenFull() {
+		buffer = buffer(Duration.ofHours(1), 2);
+		buffer.write(stored(1L, 0), "Title", "one");
+		buffer.write(stored(2L, 0), "Title", "two");
+
+		buffer.write(stored(3L, 0), "Title", "three");
+
+		assertThat(batches).singleElement().satisfies(batch -> assertThat(batch).hasSize(2));
+		assertThat(buffer.get(1L)).isEmpty();
+		assertThat(buffer.get(3L)).isPresent();
+	}
+
+	@Test
+	void drainsOnShutdown() {
+		buffer = buffer(Duration.ofHours(1), 100);
+		buffer.write(stored(1L, 0), "Title", "one");
+		buffer.write(stored(2L, 0), "Title", "two");
+
+		buffer.drain();
+
+		assertThat(batches).singleElement().satisfies(batch -> assertThat(batch).hasSize(2));
+		assertThat(buffer.get(1L)).isEmpty();
+		assertThat(buffer.get(2L)).isEmpty();
+	}
+
+	private NoteWriteBuffer buffer(Duration window, int maxPending) {
+		return new NoteWriteBuffer(jdbcTemplate, transactionManager, noteSearchEngine,
+				mock(RecentNotesCache.class), meterRegistry, true, window, 100, maxPending);
+	}
+
+	private static NoteDetailsDto stored(Long id, long version) {
+		LocalDateTime now = LocalDateTime.now();
+		return new NoteDetailsDto(id, "Title", "stored", now, now, OWNER, null, 1, version);
+	}
+}
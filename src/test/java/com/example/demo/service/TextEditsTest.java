@@ -0,0 +1,46 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.TextEditDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TextEditsTest {
+
+	@Test
+	void appliesEditsInOrderAgainstTheEditedContent() {
+		String content = TextEdits.apply("Hello world", List.of(
+				edit(5, 6, ""),
+				edit(5, 0, ", there"),
+				edit(0, 1, "h")));
+
+		assertThat(content).isEqualTo("hello, there");
+	}
+
+	@Test
+	void treatsMissingContentAndInsertAsEmpty() {
+		assertThat(TextEdits.apply(null, List.of(edit(0, 0, "First line")))).isEqualTo("First line");
+		assertThat(TextEdits.apply("abc", List.of(edit(1, 1, null)))).isEqualTo("ac");
+	}
+
+	@Test
+	void rejectsEditsOutsideTheContent() {
+		assertThatThrownBy(() -> TextEdits.apply("abc", List.of(edit(4, 0, "x"))))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> TextEdits.apply("abc", List.of(edit(2, 2, ""))))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> TextEdits.apply("abc", List.of(edit(1, Integer.MAX_VALUE, ""))))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private static TextEditDto edit(int offset, int delete, String insert) {
+		TextEditDto edit = new TextEditDto();
+		edit.setOffset(offset);
+		edit.setDelete(delete);
+		edit.setInsert(insert);
+		return edit;
+	}
+}
@@ -0,0 +1,140 @@
+package com.example.demo.service.ai;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.DoubleSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LlmGatewayTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final LlmClient llmClient = mock(LlmClient.class);
+	private final ExecutorService modelExecutor = Executors.newCachedThreadPool();
+	private final ExecutorService callers = Executors.newCachedThreadPool();
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	@BeforeEach
+	void setUp() {
+		// Every model call blocks until released
+		when(llmClient.generate(anyString())).thenAnswer(invocation -> {
+			release.await(5, TimeUnit.SECONDS);
+			return "answer";
+		});
+	}
+
+	@AfterEach
+	void tearDown() {
+		release.countDown();
+		callers.shutdownNow();
+		modelExecutor.shutdownNow();
+	}
+
+	@Test
+	void rejectsCallersBeyondTheQueue() throws Exception {
+		LlmGateway gateway = gateway(1, 1, Duration.ofSeconds(5), Duration.ofSeconds(5));
+		Future<String> running = callers.submit(() -> gateway.generate("first"));
+		awaitValue(() -> gauge("app.ai.bulkhead.active"), 1);
+		Future<String> waiting = callers.submit(() -> gateway.generate("second"));
+		awaitValue(() -> gauge("app.ai.bulkhead.queued"), 1);
+
+		assertThatThrownBy(() -> gateway.generate("third"))
+				.isInstanceOf(LlmUnavailableException.class)
+				.hasMessageContaining("Too many model calls waiting");
+		assertThat(rejected("queue_full")).isEqualTo(1);
+
+		release.countDown();
+		assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("answer");
+		assertThat(waiting.get(5, TimeUnit.SECONDS)).isEqualTo("answer");
+	}
+
+	@Test
+	void aTimedOutCallKeepsItsSlotUntilTheModelReturns() throws Exception {
+		LlmGateway gateway = gateway(1, 10, Duration.ofMillis(100), Duration.ofMillis(50));
+
+		assertThatThrownBy(() -> gateway.generate("slow"))
+				.isInstanceOf(LlmUnavailableException.class)
+				.hasMessageContaining("timed out");
+		assertThat(rejected("call_timeout")).isEqualTo(1);
+
+		// The abandoned call is still running on the model, so its slot stays taken
+		assertThat(gauge("app.ai.bulkhead.active")).isEqualTo(1);
+		assertThatThrownBy(() -> gateway.generate("next"))
+				.isInstanceOf(LlmUnavailableException.class)
+				.hasMessageContaining("No model call slot");
+		assertThat(rejected("wait_timeout")).isEqualTo(1);
+
+		release.countDown();
+		awaitValue(() -> gauge("app.ai.bulkhead.active"), 0);
+		assertThat(gateway.generate("after")).isEqualTo("answer");
+	}
+
+	@Test
+	void streamTurnsModelFailuresIntoLlmUnavailable() {
+		LlmGateway gateway = gateway(1, 10, Duration.ofSeconds(1), Duration.ofSeconds(1));
+		IllegalStateException failure = new IllegalStateException("stream broke");
+		when(llmClient.stream(anyString(), any())).thenThrow(failure);
+
+		assertThatThrownBy(() -> gateway.stream("prompt", chunk -> {
+		}))
+				.isInstanceOf(LlmUnavailableException.class)
+				.hasCause(failure);
+		assertThat(rejected("error")).isEqualTo(1);
+		assertThat(gauge("app.ai.bulkhead.active")).isZero();
+	}
+
+	@Test
+	void streamPassesAClientDisconnectThrough() {
+		LlmGateway gateway = gateway(1, 10, Duration.ofSeconds(1), Duration.ofSeconds(1));
+		when(llmClient.stream(anyString(), any())).thenAnswer(invocation -> {
+			Consumer<String> onChunk = invocation.getArgument(1);
+			onChunk.accept("Hello");
+			return "Hello";
+		});
+		UncheckedIOException disconnect = new UncheckedIOException(new IOException("Broken pipe"));
+
+		assertThatThrownBy(() -> gateway.stream("prompt", chunk -> {
+			throw disconnect;
+		})).isSameAs(disconnect);
+		assertThat(rejected("error")).isZero();
+		assertThat(gauge("app.ai.bulkhead.active")).isZero();
+	}
+
+	private LlmGateway gateway(int maxConcurrent, int maxQueue, Duration maxWait, Duration callTimeout) {
+		return new LlmGateway(llmClient, modelExecutor, meterRegistry, maxConcurrent, maxQueue, maxWait,
+				callTimeout, "busy");
+	}
+
+	private double gauge(String name) {
+		return meterRegistry.get(name).gauge().value();
+	}
+
+	private double rejected(String reason) {
+		return meterRegistry.get("app.ai.bulkhead.rejected").tag("reason", reason).counter().count();
+	}
+
+	private static void awaitValue(DoubleSupplier value, double expected) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (value.getAsDouble() != expected) {
+			assertThat(System.nanoTime() - deadline).as("waiting for %s", expected).isNegative();
+			Thread.sleep(5);
+		}
+	}
+}
@@ -0,0 +1,105 @@
+package com.example.demo.service.ai;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LlmResponseCacheTest {
+
+	private static final int CALLERS = 8;
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final LlmResponseCache cache = new LlmResponseCache(meterRegistry, true, Duration.ofMinutes(10), 100);
+	private final ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+	private final AtomicInteger modelCalls = new AtomicInteger();
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	@AfterEach
+	void tearDown() {
+		release.countDown();
+		callers.shutdownNow();
+	}
+
+	@Test
+	void concurrentIdenticalPromptsShareOneModelCall() throws Exception {
+		List<Future<String>> answers = callConcurrently(prompt -> {
+			modelCalls.incrementAndGet();
+			await(release);
+			return "answer";
+		});
+
+		release.countDown();
+
+		for (Future<String> answer : answers) {
+			assertThat(answer.get(5, TimeUnit.SECONDS)).isEqualTo("answer");
+		}
+		assertThat(modelCalls).hasValue(1);
+		// Later calls are served from the cache, also with different whitespace
+		assertThat(cache.get("  summarize   this note ", prompt -> "other")).isEqualTo("answer");
+		assertThat(modelCalls).hasValue(1);
+	}
+
+	@Test
+	void aFailureReachesEveryWaiterAndIsNotCached() throws Exception {
+		IllegalStateException failure = new IllegalStateException("quota exceeded");
+		List<Future<String>> answers = callConcurrently(prompt -> {
+			modelCalls.incrementAndGet();
+			await(release);
+			throw failure;
+		});
+
+		release.countDown();
+
+		for (Future<String> answer : answers) {
+			assertThatThrownBy(() -> answer.get(5, TimeUnit.SECONDS))
+					.isInstanceOf(ExecutionException.class)
+					.cause().isSameAs(failure);
+		}
+		assertThat(modelCalls).hasValue(1);
+		assertThat(cache.get("summarize this note", prompt -> "recovered")).isEqualTo("recovered");
+	}
+
+	/**
+	 * Starts CALLERS identical calls and returns once one of them is calling the
+	 * model and the others are waiting for it.
+	 */
+	private List<Future<String>> callConcurrently(Function<String, String> model) throws InterruptedException {
+		List<Future<String>> answers = new ArrayList<>();
+		for (int i = 0; i < CALLERS; i++) {
+			answers.add(callers.submit(() -> cache.get("summarize this note", model)));
+		}
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (coalesced() < CALLERS - 1) {
+			assertThat(System.nanoTime() - deadline).as("callers joining the call in flight").isNegative();
+			Thread.sleep(5);
+		}
+		return answers;
+	}
+
+	private double coalesced() {
+		return meterRegistry.get("app.ai.response-cache.requests").tag("result", "coalesced").counter().count();
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
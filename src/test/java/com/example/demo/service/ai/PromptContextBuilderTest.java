@@ -0,0 +1,81 @@
+package com.example.demo.service.ai;
+
+import com.example.demo.model.AiChatMessage;
+import com.example.demo.model.AiMessageRole;
+import com.example.demo.model.Note;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PromptContextBuilderTest {
+
+	private static final int MAX_TOKENS = 1000;
+	private static final int MAX_CHARS = MAX_TOKENS * 4;
+
+	private final PromptContextBuilder builder = new PromptContextBuilder(MAX_TOKENS, 50, 20, 4000);
+
+	@Test
+	void trimsTheHistoryToTheBudgetKeepingTheNewestMessages() {
+		List<AiChatMessage> window = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			window.add(message(i % 2 == 0 ? AiMessageRole.USER : AiMessageRole.MODEL, "message-" + i + "|" + "x".repeat(300)));
+		}
+
+		String prompt = builder.build(note("Groceries", "milk, eggs"), null, window);
+
+		assertThat(prompt.length()).isLessThanOrEqualTo(MAX_CHARS);
+		assertThat(prompt).contains("message-19|").doesNotContain("message-0|");
+		// The included messages are the newest ones, without gaps
+		int oldestIncluded = 19;
+		while (oldestIncluded > 0 && prompt.contains("message-" + (oldestIncluded - 1) + "|")) {
+			oldestIncluded--;
+		}
+		for (int i = 0; i < oldestIncluded; i++) {
+			assertThat(prompt).doesNotContain("message-" + i + "|");
+		}
+		assertThat(prompt.indexOf("message-18|")).isLessThan(prompt.indexOf("message-19|"));
+	}
+
+	@Test
+	void alwaysKeepsTheCurrentQuestion() {
+		String question = "question|" + "y".repeat(MAX_CHARS);
+		List<AiChatMessage> window = List.of(
+				message(AiMessageRole.USER, "earlier|hello"),
+				message(AiMessageRole.MODEL, "answer|hi"),
+				message(AiMessageRole.USER, question));
+
+		String prompt = builder.build(note("Groceries", "milk, eggs"), null, window);
+
+		assertThat(prompt).contains("USER: " + question + "\n").doesNotContain("earlier|").doesNotContain("answer|");
+	}
+
+	@Test
+	void keepsTheCurrentQuestionWhenTheNoteAndSummaryUseTheWholeBudget() {
+		String summary = "USER: " + "s".repeat(MAX_CHARS) + "\n";
+		List<AiChatMessage> window = List.of(
+				message(AiMessageRole.MODEL, "answer|hi"),
+				message(AiMessageRole.USER, "question|what next?"));
+
+		String prompt = builder.build(note("Long", "c".repeat(MAX_CHARS)), summary, window);
+
+		assertThat(prompt).contains("USER: question|what next?\n").doesNotContain("answer|");
+		assertThat(prompt).contains("[... rest of the note omitted ...]");
+	}
+
+	private static Note note(String title, String content) {
+		Note note = new Note();
+		note.setTitle(title);
+		note.setContent(content);
+		return note;
+	}
+
+	private static AiChatMessage message(AiMessageRole role, String content) {
+		AiChatMessage message = new AiChatMessage();
+		message.setRole(role);
+		message.setContent(content);
+		return message;
+	}
+}
@@ -0,0 +1,80 @@
+package com.example.demo.service.auth;
+
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Encoders;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtKeyRotationTest {
+
+	private static final long EXPIRATION = TimeUnit.HOURS.toMillis(1);
+	private static final String OLD_SECRET = newSecret();
+	private static final String NEW_SECRET = newSecret();
+
+	private final UserDetails alice = User.withUsername("alice").password("unused").build();
+
+	@Test
+	void tokensSignedWithAnOldKidStillVerifyAfterARestartWithARotatedConfiguration() {
+		JwtService beforeRotation = fromConfiguration(Map.of("k1", OLD_SECRET), "k1");
+		String oldToken = beforeRotation.generateToken(alice);
+
+		// Restart, or another instance, with the new key added and made active
+		JwtService afterRotation = fromConfiguration(Map.of("k1", OLD_SECRET, "k2", NEW_SECRET), "k2");
+		String newToken = afterRotation.generateToken(alice);
+
+		assertThat(afterRotation.parseClaims(oldToken).getSubject()).isEqualTo("alice");
+		assertThat(afterRotation.parseClaims(newToken).getSubject()).isEqualTo("alice");
+		assertThat(afterRotation.getKeyRing().getActiveKeyId()).isEqualTo("k2");
+		assertThatThrownBy(() -> beforeRotation.parseClaims(newToken)).isInstanceOf(JwtException.class);
+	}
+
+	@Test
+	void oldTokensFailOnceTheOldKeyIsRetired() {
+		JwtService jwtService = fromConfiguration(Map.of("k1", OLD_SECRET), "k1");
+		String oldToken = jwtService.generateToken(alice);
+
+		jwtService.rotateKey("k2", NEW_SECRET);
+		String newToken = jwtService.generateToken(alice);
+		assertThat(jwtService.parseClaims(oldToken).getSubject()).isEqualTo("alice");
+
+		jwtService.retireKey("k1");
+		assertThatThrownBy(() -> jwtService.parseClaims(oldToken)).isInstanceOf(JwtException.class);
+		assertThat(jwtService.parseClaims(newToken).getSubject()).isEqualTo("alice");
+	}
+
+	@Test
+	void legacySecretKeyIsTheDefaultKid() {
+		JwtService legacy = new JwtService(OLD_SECRET, EXPIRATION);
+		String token = legacy.generateToken(alice);
+
+		JwtService configured = new JwtService(
+				JwtKeyRing.fromConfiguration(Map.of("k2", NEW_SECRET), "k2", OLD_SECRET), EXPIRATION);
+
+		assertThat(configured.parseClaims(token).getSubject()).isEqualTo("alice");
+		assertThat(configured.getKeyRing().getKeys()).containsOnlyKeys(JwtKeyRing.DEFAULT_KEY_ID, "k2");
+	}
+
+	@Test
+	void rejectsAnActiveKidThatIsNotConfigured() {
+		assertThatThrownBy(() -> JwtKeyRing.fromConfiguration(Map.of("k1", OLD_SECRET), "k2", ""))
+				.isInstanceOf(IllegalStateException.class);
+		assertThatThrownBy(() -> JwtKeyRing.fromConfiguration(Map.of("k1", OLD_SECRET, "k2", NEW_SECRET), "", ""))
+				.isInstanceOf(IllegalStateException.class);
+	}
+
+	private static JwtService fromConfiguration(Map<String, String> keys, String activeKeyId) {
+		return new JwtService(JwtKeyRing.fromConfiguration(keys, activeKeyId, null), EXPIRATION);
+	}
+
+	private static String newSecret() {
+		return Encoders.BASE64.encode(Jwts.SIG.HS256.key().build().getEncoded());
+	}
+}
@@ -0,0 +1,65 @@
+package com.example.demo.support;
+
+import com.example.demo.model.User;
+import com.example.demo.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Base class for tests that need the real schema: native queries, CTEs and the
+ * DatabaseSchemaInitializer statements only run on PostgreSQL. The container is
+ * a bean, so it is shared by every test class that reuses the cached context.
+ * Skipped when Docker is not available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=update",
+        "spring.mail.username=test@example.com",
+        "spring.mail.password=unused",
+        "app.ai.client=stub",
+        "app.ai.stub.latency=0ms",
+        "app.trash.purge.enabled=false",
+        "security.jwt.secret-key=aW50ZWdyYXRpb24tdGVzdC1zZWNyZXQta2V5LXRoYXQtaXMtYXQtbGVhc3QtMjU2LWJpdHM=",
+        "security.jwt.expiration-time=3600000"
+})
+@AutoConfigureMockMvc
+@Import(PostgresIntegrationTest.Postgres.class)
+public abstract class PostgresIntegrationTest {
+
+    private static final AtomicInteger USERS = new AtomicInteger();
+
+    @TestConfiguration(proxyBeanMethods = false)
+    static class Postgres {
+
+        @Bean
+        @ServiceConnection
+        PostgreSQLContainer<?> postgres() {
+            return new PostgreSQLContainer<>("postgres:16-alpine");
+        }
+    }
+
+    @Autowired
+    protected UserRepository userRepository;
+
+    /**
+     * @return A new verified user with a unique username
+     */
+    protected User createUser() {
+        int n = USERS.incrementAndGet();
+        User user = new User();
+        user.setUsername("it-user-" + n + "-" + System.nanoTime() % 100_000);
+        user.setEmail(user.getUsername() + "@example.com");
+        user.setPassword("unused");
+        user.setEnabled(true);
+        return userRepository.save(user);
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.demo.support;
+
+import com.example.demo.observability.RequestQueryStats;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Query budgets for endpoint tests, based on the counts QueryMetricsFilter
+ * stores on the request. Requires the filter in the MockMvc setup
+ * (@AutoConfigureMockMvc adds it):
+ *
+ * <pre>
+ * mockMvc.perform(get("/groups").with(user(...)))
+ *         .andExpect(status().isOk())
+ *         .andExpect(QueryBudget.statementsAtMost(3));
+ * </pre>
+ */
+public final class QueryBudget {
+
+    private QueryBudget() {
+    }
+
+    public static ResultMatcher statementsAtMost(long max) {
+        return result -> {
+            RequestQueryStats stats = stats(result.getRequest().getAttribute(RequestQueryStats.REQUEST_ATTRIBUTE));
+            assertTrue(stats.getStatements() <= max,
+                    () -> "Expected at most " + max + " SQL statements but was " + stats.getStatements()
+                            + " (" + stats + ")");
+        };
+    }
+
+    public static ResultMatcher entityLoadsAtMost(long max) {
+        return result -> {
+            RequestQueryStats stats = stats(result.getRequest().getAttribute(RequestQueryStats.REQUEST_ATTRIBUTE));
+            assertTrue(stats.getEntityLoads() + stats.getCollectionLoads() <= max,
+                    () -> "Expected at most " + max + " entity and collection loads but was "
+                            + (stats.getEntityLoads() + stats.getCollectionLoads()) + " (" + stats + ")");
+        };
+    }
+
+    /**
+     * Runs code outside of an HTTP request, e.g. a service call in a test, and
+     * fails if it prepares more than the given number of statements.
+     */
+    public static void assertStatementsAtMost(long max, Runnable code) {
+        RequestQueryStats stats = RequestQueryStats.start();
+        try {
+            code.run();
+        } finally {
+            RequestQueryStats.stop();
+        }
+        assertTrue(stats.getStatements() <= max,
+                () -> "Expected at most " + max + " SQL statements but was " + stats.getStatements()
+                        + " (" + stats + ")");
+    }
+
+    private static RequestQueryStats stats(Object attribute) {
+        assertNotNull(attribute, "No query stats on the request, is QueryMetricsFilter part of the MockMvc setup?");
+        return (RequestQueryStats) attribute;
+    }
+}